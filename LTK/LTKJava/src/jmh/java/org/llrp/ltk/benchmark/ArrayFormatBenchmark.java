@@ -0,0 +1,100 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.llrp.ltk.types.UnsignedByteArray_HEX;
+import org.llrp.ltk.types.UnsignedShortArray;
+import org.llrp.ltk.types.UnsignedShortArray_HEX;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * LTK XML text of the arrays holding tag memory, like the ReadData of a
+ * C1G2ReadOpSpecResult. The default of 512 words is a full user memory read.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ArrayFormatBenchmark {
+    private static final Namespace NS = Namespace.getNamespace("llrp",
+            "http://www.llrp.org/ltk/schema/core/encoding/xml/1.0");
+    @Param({"32", "512"})
+    public int words;
+    private UnsignedShortArray_HEX hexWords;
+    private UnsignedShortArray decimalWords;
+    private UnsignedByteArray_HEX hexBytes;
+    private Element hexWordsElement;
+    private Element decimalWordsElement;
+    private Element hexBytesElement;
+
+    @Setup
+    public void setup() {
+        short[] data = new short[words];
+
+        for (int i = 0; i < words; i++) {
+            data[i] = (short) (i * 40503);
+        }
+
+        hexWords = new UnsignedShortArray_HEX(data);
+        decimalWords = new UnsignedShortArray(data);
+        hexWordsElement = new Element("ReadData", NS).setText(hexWords.toString());
+        decimalWordsElement = new Element("ReadData", NS).setText(decimalWords.toString());
+        hexBytesElement = new Element("EPC", NS).setText(hexWords.toString()
+                                                                 .replace(" ", ""));
+        hexBytes = new UnsignedByteArray_HEX(hexBytesElement);
+    }
+
+    @Benchmark
+    public String formatHexWords() {
+        return hexWords.toString();
+    }
+
+    @Benchmark
+    public UnsignedShortArray_HEX parseHexWords() {
+        return new UnsignedShortArray_HEX(hexWordsElement);
+    }
+
+    @Benchmark
+    public String formatDecimalWords() {
+        return decimalWords.toString();
+    }
+
+    @Benchmark
+    public UnsignedShortArray parseDecimalWords() {
+        return new UnsignedShortArray(decimalWordsElement);
+    }
+
+    @Benchmark
+    public String formatHexBytes() {
+        return hexBytes.toString();
+    }
+
+    @Benchmark
+    public UnsignedByteArray_HEX parseHexBytes() {
+        return new UnsignedByteArray_HEX(hexBytesElement);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jdom.Document;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.LLRPValidationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Binary and XML encoding and decoding of the golden test vectors. Every
+ * invocation handles one message; successive invocations walk through all
+ * messages of the vector, so the score is the average over the vector.
+ * <p>
+ * The vector parameter is the base name of a .bin file as found by
+ * TestVectors, or "all" to cycle through every vector. The validation
+ * parameter sets the default validation policy for the XML benchmarks. Run
+ * with -prof gc to get the bytes allocated per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+    private static final String ALL = "all";
+    @Param({ALL})
+    public String vector;
+    @Param({"NONE", "ALWAYS"})
+    public String validation;
+    private byte[][] frames;
+    private LLRPMessage[] messages;
+    private Document[] documents;
+    private ByteBuffer buffer;
+    private ByteArrayOutputStream xml = new ByteArrayOutputStream(8192);
+    private int nextFrame;
+    private int nextMessage;
+    private int nextDocument;
+
+    @Setup
+    public void setup() throws IOException {
+        LLRPMessage.setDefaultValidationPolicy(LLRPValidationPolicy.valueOf(
+                validation));
+
+        List<String> names = ALL.equals(vector) ? TestVectors.names()
+                                                : Arrays.asList(new String[] {
+                    vector
+                });
+        List<byte[]> frames = new ArrayList<byte[]>();
+        List<LLRPMessage> messages = new ArrayList<LLRPMessage>();
+        List<Document> documents = new ArrayList<Document>();
+        int capacity = 0;
+
+        for (Iterator<String> i = names.iterator(); i.hasNext();) {
+            TestVectors vectors = TestVectors.load(i.next());
+            frames.addAll(Arrays.asList(vectors.getFrames()));
+            messages.addAll(Arrays.asList(vectors.getMessages()));
+            documents.addAll(Arrays.asList(vectors.getDocuments()));
+        }
+
+        for (Iterator<byte[]> i = frames.iterator(); i.hasNext();) {
+            capacity = Math.max(capacity, i.next().length);
+        }
+
+        this.frames = frames.toArray(new byte[frames.size()][]);
+        this.messages = messages.toArray(new LLRPMessage[messages.size()]);
+        this.documents = documents.toArray(new Document[documents.size()]);
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    @Benchmark
+    public LLRPMessage decodeBinary() throws InvalidLLRPMessageException {
+        byte[] frame = frames[nextFrame];
+        nextFrame = (nextFrame + 1) % frames.length;
+
+        return LLRPMessageFactory.createLLRPMessage(frame);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() throws InvalidLLRPMessageException {
+        LLRPMessage message = messages[nextMessage];
+        nextMessage = (nextMessage + 1) % messages.length;
+
+        return message.encodeBinary();
+    }
+
+    /**
+     * encode into a reused buffer, the allocation free path of the encoder.
+     */
+    @Benchmark
+    public void encodeBinaryBuffer(Blackhole blackhole)
+        throws InvalidLLRPMessageException {
+        LLRPMessage message = messages[nextMessage];
+        nextMessage = (nextMessage + 1) % messages.length;
+        buffer.clear();
+        blackhole.consume(message.encodeBinary(buffer));
+    }
+
+    @Benchmark
+    public Document encodeXML() throws InvalidLLRPMessageException {
+        LLRPMessage message = messages[nextMessage];
+        nextMessage = (nextMessage + 1) % messages.length;
+
+        return message.encodeXML();
+    }
+
+    /**
+     * write LTK XML to a reused stream without building a document.
+     */
+    @Benchmark
+    public int encodeXMLStream() throws InvalidLLRPMessageException {
+        LLRPMessage message = messages[nextMessage];
+        nextMessage = (nextMessage + 1) % messages.length;
+        xml.reset();
+        message.encodeXML(xml);
+
+        return xml.size();
+    }
+
+    @Benchmark
+    public LLRPMessage decodeXML() throws InvalidLLRPMessageException {
+        Document document = documents[nextDocument];
+        nextDocument = (nextDocument + 1) % documents.length;
+
+        return LLRPMessageFactory.createLLRPMessage(document);
+    }
+}
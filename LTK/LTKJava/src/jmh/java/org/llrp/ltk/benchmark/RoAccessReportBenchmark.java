@@ -0,0 +1,165 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.jdom.Document;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.generated.messages.RO_ACCESS_REPORT;
+import org.llrp.ltk.generated.parameters.AntennaID;
+import org.llrp.ltk.generated.parameters.EPC_96;
+import org.llrp.ltk.generated.parameters.FirstSeenTimestampUTC;
+import org.llrp.ltk.generated.parameters.PeakRSSI;
+import org.llrp.ltk.generated.parameters.ROSpecID;
+import org.llrp.ltk.generated.parameters.TagReportData;
+import org.llrp.ltk.generated.parameters.TagSeenCount;
+import org.llrp.ltk.types.Integer96_HEX;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.LLRPValidationPolicy;
+import org.llrp.ltk.types.SignedByte;
+import org.llrp.ltk.types.UnsignedInteger;
+import org.llrp.ltk.types.UnsignedLong_DATETIME;
+import org.llrp.ltk.types.UnsignedShort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Encoding and decoding of a synthetic RO_ACCESS_REPORT, the message a
+ * reader sends most often and the largest one in a busy inventory. The report
+ * carries tagCount TagReportData parameters, each with an EPC_96, ROSpecID,
+ * AntennaID, PeakRSSI, FirstSeenTimestampUTC and TagSeenCount, so the score
+ * shows how the codec scales with the number of tags.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoAccessReportBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int tagCount;
+    @Param({"NONE", "ALWAYS"})
+    public String validation;
+    private RO_ACCESS_REPORT report;
+    private byte[] frame;
+    private Document document;
+    private byte[] xmlBytes;
+    private ByteArrayOutputStream xml = new ByteArrayOutputStream(8192);
+
+    @Setup
+    public void setup() throws InvalidLLRPMessageException {
+        LLRPMessage.setDefaultValidationPolicy(LLRPValidationPolicy.valueOf(
+                validation));
+        report = report(tagCount);
+        frame = report.encodeBinary();
+        document = report.encodeXML();
+        xml.reset();
+        report.encodeXML(xml);
+        xmlBytes = xml.toByteArray();
+    }
+
+    /**
+     * report with tagCount distinct tags.
+     *
+     * @param tagCount number of TagReportData parameters
+     *
+     * @return RO_ACCESS_REPORT
+     */
+    public static RO_ACCESS_REPORT report(int tagCount) {
+        RO_ACCESS_REPORT report = new RO_ACCESS_REPORT();
+        report.setMessageID(new UnsignedInteger(1));
+
+        for (int i = 0; i < tagCount; i++) {
+            EPC_96 epc = new EPC_96();
+            epc.setEPC(new Integer96_HEX("3008" +
+                    Integer.toHexString(0x10000000 + i) + "000000000000", 16));
+
+            ROSpecID roSpecID = new ROSpecID();
+            roSpecID.setROSpecID(new UnsignedInteger(1));
+
+            AntennaID antennaID = new AntennaID();
+            antennaID.setAntennaID(new UnsignedShort((i % 4) + 1));
+
+            PeakRSSI peakRSSI = new PeakRSSI();
+            peakRSSI.setPeakRSSI(new SignedByte(-40 - (i % 30)));
+
+            FirstSeenTimestampUTC firstSeen = new FirstSeenTimestampUTC();
+            firstSeen.setMicroseconds(new UnsignedLong_DATETIME(
+                    1190000000000000L + (i * 1000L)));
+
+            TagSeenCount tagSeenCount = new TagSeenCount();
+            tagSeenCount.setTagCount(new UnsignedShort((i % 10) + 1));
+
+            TagReportData tag = new TagReportData();
+            tag.setEPCParameter(epc);
+            tag.setROSpecID(roSpecID);
+            tag.setAntennaID(antennaID);
+            tag.setPeakRSSI(peakRSSI);
+            tag.setFirstSeenTimestampUTC(firstSeen);
+            tag.setTagSeenCount(tagSeenCount);
+            report.addToTagReportDataList(tag);
+        }
+
+        return report;
+    }
+
+    @Benchmark
+    public LLRPMessage decodeBinary() throws InvalidLLRPMessageException {
+        return LLRPMessageFactory.createLLRPMessage(frame);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() throws InvalidLLRPMessageException {
+        return report.encodeBinary();
+    }
+
+    @Benchmark
+    public Document encodeXML() throws InvalidLLRPMessageException {
+        return report.encodeXML();
+    }
+
+    @Benchmark
+    public int encodeXMLStream() throws InvalidLLRPMessageException {
+        xml.reset();
+        report.encodeXML(xml);
+
+        return xml.size();
+    }
+
+    @Benchmark
+    public LLRPMessage decodeXML() throws InvalidLLRPMessageException {
+        return LLRPMessageFactory.createLLRPMessage(document);
+    }
+
+    /**
+     * parse LTK XML with the StAX reader, without building a document of
+     * the whole stream first.
+     */
+    @Benchmark
+    public LLRPMessage decodeXMLStream() throws InvalidLLRPMessageException {
+        return LLRPMessageFactory.createLLRPMessage(new ByteArrayInputStream(
+                xmlBytes));
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.types.LLRPMessage;
+
+
+/**
+ * Loads the binary and LTK XML test vectors the benchmarks run on. A vector
+ * is identified by the base name of its .bin file, e.g. ADD_ROSPEC or
+ * dx101_c. A .bin file holds one or more LLRP frames as they are sent over
+ * the wire. The .xml file with the same base name holds either one message or
+ * a packetSequence of messages; vectors without .xml file use the XML
+ * encoding of the decoded frames instead.
+ * <p>
+ * The directories searched are given by the system property ltk.vectors as
+ * a comma separated list and default to the test resources of LTKJava and the
+ * dx101 and dx301 golden test files.
+ */
+public class TestVectors {
+    public static final String DIRECTORIES_PROPERTY = "ltk.vectors";
+    public static final String DEFAULT_DIRECTORIES = "src/test/resources,../Tests/dx101,../Tests/dx301";
+    private static final int HEADERLENGTH = 10;
+    private final String name;
+    private final byte[][] frames;
+    private final LLRPMessage[] messages;
+    private final Document[] documents;
+
+    private TestVectors(String name, byte[][] frames, LLRPMessage[] messages,
+        Document[] documents) {
+        this.name = name;
+        this.frames = frames;
+        this.messages = messages;
+        this.documents = documents;
+    }
+
+    /**
+     * load a vector by base name.
+     *
+     * @param name base name of the .bin file, without directory
+     *
+     * @return TestVectors
+     *
+     * @throws IOException if the files can not be read
+     */
+    public static TestVectors load(String name) throws IOException {
+        File bin = find(name + ".bin");
+
+        if (bin == null) {
+            throw new IllegalArgumentException("test vector " + name +
+                ".bin not found in " + directories());
+        }
+
+        // frames the LTK can not decode are left out of all benchmarks
+        List<byte[]> frames = new ArrayList<byte[]>();
+        List<LLRPMessage> messages = new ArrayList<LLRPMessage>();
+        int skipped = 0;
+
+        for (Iterator<byte[]> i = split(read(bin)).iterator(); i.hasNext();) {
+            byte[] frame = i.next();
+
+            try {
+                messages.add(LLRPMessageFactory.createLLRPMessage(frame));
+                frames.add(frame);
+            } catch (InvalidLLRPMessageException e) {
+                skipped++;
+            } catch (RuntimeException e) {
+                skipped++;
+            }
+        }
+
+        if (skipped > 0) {
+            System.err.println(name + ": skipping " + skipped +
+                " frames that can not be decoded");
+        }
+
+        if (messages.isEmpty()) {
+            throw new IllegalStateException("test vector " + name +
+                " does not contain a decodable frame");
+        }
+
+        List<Document> documents = new ArrayList<Document>();
+        File xml = find(name + ".xml");
+
+        if (xml != null) {
+            documents = documents(xml);
+        } else {
+            for (Iterator<LLRPMessage> i = messages.iterator(); i.hasNext();) {
+                try {
+                    documents.add(i.next().encodeXML());
+                } catch (InvalidLLRPMessageException e) {
+                    throw new IllegalStateException(e.getMessage());
+                }
+            }
+        }
+
+        return new TestVectors(name, frames.toArray(new byte[frames.size()][]),
+            messages.toArray(new LLRPMessage[messages.size()]),
+            documents.toArray(new Document[documents.size()]));
+    }
+
+    /**
+     * base names of all .bin files in the vector directories.
+     *
+     * @return List of names
+     */
+    public static List<String> names() {
+        List<String> names = new ArrayList<String>();
+
+        for (Iterator<File> d = directories().iterator(); d.hasNext();) {
+            File[] files = d.next().listFiles();
+
+            if (files == null) {
+                continue;
+            }
+
+            for (int i = 0; i < files.length; i++) {
+                String file = files[i].getName();
+
+                if (file.endsWith(".bin")) {
+                    String name = file.substring(0, file.length() - 4);
+
+                    if (!names.contains(name)) {
+                        names.add(name);
+                    }
+                }
+            }
+        }
+
+        return names;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * binary frames, one message each.
+     *
+     * @return byte[][]
+     */
+    public byte[][] getFrames() {
+        return frames;
+    }
+
+    /**
+     * messages decoded from the frames.
+     *
+     * @return LLRPMessage[]
+     */
+    public LLRPMessage[] getMessages() {
+        return messages;
+    }
+
+    /**
+     * LTK XML documents, one message each.
+     *
+     * @return Document[]
+     */
+    public Document[] getDocuments() {
+        return documents;
+    }
+
+    private static List<File> directories() {
+        String property = System.getProperty(DIRECTORIES_PROPERTY,
+                DEFAULT_DIRECTORIES);
+        String[] names = property.split(",");
+        List<File> directories = new ArrayList<File>();
+
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].trim().length() > 0) {
+                directories.add(new File(names[i].trim()));
+            }
+        }
+
+        return directories;
+    }
+
+    private static File find(String file) {
+        for (Iterator<File> d = directories().iterator(); d.hasNext();) {
+            File f = new File(d.next(), file);
+
+            if (f.isFile()) {
+                return f;
+            }
+        }
+
+        return null;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * split a byte stream into frames using the length field of each header.
+     */
+    private static List<byte[]> split(byte[] stream) {
+        List<byte[]> frames = new ArrayList<byte[]>();
+        int position = 0;
+
+        while ((stream.length - position) >= HEADERLENGTH) {
+            long length = (((stream[position + 2] & 0xFFL) << 24) |
+                ((stream[position + 3] & 0xFFL) << 16) |
+                ((stream[position + 4] & 0xFFL) << 8) |
+                (stream[position + 5] & 0xFFL));
+
+            if ((length < HEADERLENGTH) ||
+                    (length > (stream.length - position))) {
+                // truncated or corrupt frame ends the stream
+                break;
+            }
+
+            byte[] frame = new byte[(int) length];
+            System.arraycopy(stream, position, frame, 0, frame.length);
+            frames.add(frame);
+            position += frame.length;
+        }
+
+        return frames;
+    }
+
+    /**
+     * single message documents from a file holding a message or a
+     * packetSequence.
+     */
+    private static List<Document> documents(File xml) throws IOException {
+        List<Document> documents = new ArrayList<Document>();
+        Document document;
+
+        try {
+            document = new SAXBuilder().build(xml);
+        } catch (JDOMException e) {
+            throw new IOException(xml + " is not well formed: " +
+                e.getMessage());
+        }
+
+        Element root = document.getRootElement();
+
+        if (!root.getName().equals("packetSequence")) {
+            documents.add(document);
+
+            return documents;
+        }
+
+        for (Iterator<?> i = root.getChildren().iterator(); i.hasNext();) {
+            Element message = (Element) i.next();
+            documents.add(new Document((Element) message.clone()));
+        }
+
+        return documents;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jdom.Namespace;
+import org.llrp.ltk.types.LLRPBitList;
+import org.llrp.ltk.types.LLRPBitReader;
+import org.llrp.ltk.types.LLRPNumberType;
+import org.llrp.ltk.types.LLRPParameter;
+import org.llrp.ltk.types.LLRPParameterFactory;
+import org.llrp.ltk.types.SignedShort;
+import org.llrp.ltk.types.UnsignedShort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Finding the parameter type of a TLV header among the subtypes of a choice.
+ * Every invocation dispatches one header of each candidate type. xmlTextEquals
+ * builds a SignedShort from the type bits and compares it with every candidate
+ * by the text of their XML encoding, as LLRPNumberType.equals used to;
+ * valueEquals does the same with the value based equals; tableLookup reads the
+ * type as int and looks it up in a factory table, the way generated decoders
+ * dispatch choices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TypeDispatchBenchmark {
+    // type numbers of the AccessCommandOpSpec choice (C1G2 Read ... BlockWrite
+    // and the ClientRequestOpSpec) as an example of a long candidate list
+    private static final SignedShort[] CANDIDATES = new SignedShort[] {
+            new SignedShort(341), new SignedShort(342), new SignedShort(343),
+            new SignedShort(344), new SignedShort(345), new SignedShort(346),
+            new SignedShort(210)
+        };
+    private static final Namespace NS = Namespace.getNamespace("foo");
+    private LLRPBitList[] headers;
+    private LLRPParameterFactory[] table;
+
+    @Setup
+    public void setup() {
+        headers = new LLRPBitList[CANDIDATES.length];
+
+        for (int i = 0; i < headers.length; i++) {
+            LLRPBitList header = new LLRPBitList(6);
+            header.append(CANDIDATES[i].encodeBinary().subList(6, 10));
+            header.append(new UnsignedShort(4).encodeBinary());
+            headers[i] = header;
+        }
+
+        LLRPParameterFactory[] factories = new LLRPParameterFactory[CANDIDATES.length];
+
+        for (int i = 0; i < factories.length; i++) {
+            factories[i] = new LLRPParameterFactory(CANDIDATES[i], 0) {
+                        public LLRPParameter create(LLRPBitList bits) {
+                            return null;
+                        }
+
+                        public LLRPParameter create(LLRPBitReader reader,
+                            int length, int end) {
+                            return null;
+                        }
+                    };
+        }
+
+        table = LLRPParameterFactory.table(factories);
+    }
+
+    @Benchmark
+    public int xmlTextEquals() {
+        int matched = 0;
+
+        for (int h = 0; h < headers.length; h++) {
+            SignedShort type = new SignedShort(headers[h].subList(6, 10));
+
+            for (int c = 0; c < CANDIDATES.length; c++) {
+                if (xmlTextEquals(type, CANDIDATES[c])) {
+                    matched++;
+
+                    break;
+                }
+            }
+        }
+
+        return matched;
+    }
+
+    @Benchmark
+    public int valueEquals() {
+        int matched = 0;
+
+        for (int h = 0; h < headers.length; h++) {
+            SignedShort type = new SignedShort(headers[h].subList(6, 10));
+
+            for (int c = 0; c < CANDIDATES.length; c++) {
+                if (type.equals(CANDIDATES[c])) {
+                    matched++;
+
+                    break;
+                }
+            }
+        }
+
+        return matched;
+    }
+
+    @Benchmark
+    public int tableLookup() {
+        int matched = 0;
+
+        for (int h = 0; h < headers.length; h++) {
+            if (LLRPParameterFactory.lookup(table, headers[h].intValue(6, 10)) != null) {
+                matched++;
+            }
+        }
+
+        return matched;
+    }
+
+    /**
+     * equals as implemented before the numeric types compared values.
+     */
+    private static boolean xmlTextEquals(LLRPNumberType a, LLRPNumberType b) {
+        String x = a.encodeXML("value", NS).getValue();
+        String y = b.encodeXML("value", NS).getValue();
+
+        return x.equalsIgnoreCase(y);
+    }
+}
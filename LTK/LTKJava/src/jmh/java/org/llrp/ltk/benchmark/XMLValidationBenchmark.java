@@ -0,0 +1,71 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jdom.Document;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPConstants;
+import org.llrp.ltk.generated.messages.RO_ACCESS_REPORT;
+import org.llrp.ltk.types.LLRPValidationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+
+/**
+ * Schema validation of an RO_ACCESS_REPORT from one thread and from as many
+ * threads as there are cores. All threads validate against the same schema
+ * path; validation scales with the cores only if the threads do not wait for
+ * each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class XMLValidationBenchmark {
+    @Param({"10"})
+    public int tagCount;
+    private RO_ACCESS_REPORT report;
+    private Document document;
+
+    @Setup
+    public void setup() throws InvalidLLRPMessageException {
+        report = RoAccessReportBenchmark.report(tagCount);
+        report.setValidationPolicy(LLRPValidationPolicy.NONE);
+        document = report.encodeXML();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean validateOneThread() throws InvalidLLRPMessageException {
+        return report.isValidXMLMessage(document,
+            LLRPConstants.LLRPMESSAGESCHEMAPATH);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean validateAllThreads() throws InvalidLLRPMessageException {
+        return report.isValidXMLMessage(document,
+            LLRPConstants.LLRPMESSAGESCHEMAPATH);
+    }
+}
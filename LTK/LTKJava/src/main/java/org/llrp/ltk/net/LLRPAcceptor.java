@@ -23,7 +23,6 @@ import java.net.InetSocketAddress;
 import org.apache.log4j.Logger;
 import org.apache.mina.common.IoAcceptor;
 import org.apache.mina.filter.LoggingFilter;
-import org.apache.mina.filter.codec.ProtocolCodecFilter;
 import org.apache.mina.transport.socket.nio.SocketAcceptor;
 import org.apache.mina.transport.socket.nio.SocketAcceptorConfig;
 
@@ -133,7 +132,7 @@ public class LLRPAcceptor extends LLRPConnection  {
 	public void bind(long timeout) throws LLRPConnectionAttemptFailedException{
 		acceptor = new SocketAcceptor();
 		acceptor.getFilterChain().addLast( "logger", new LoggingFilter() );
-		acceptor.getFilterChain().addLast("codec", new ProtocolCodecFilter(new LLRPProtocolCodecFactory(LLRPProtocolCodecFactory.BINARY_ENCODING)));
+		addCodecFilter(acceptor);
 		// MINA 2.0
 		// acceptor.setHandler(handler);
 		//acceptor.getSessionConfig().setReadBufferSize( 2048 );
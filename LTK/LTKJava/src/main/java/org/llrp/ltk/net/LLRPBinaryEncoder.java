@@ -17,6 +17,8 @@
 
 package org.llrp.ltk.net;
 
+import java.nio.BufferOverflowException;
+
 import org.apache.log4j.Logger;
 import org.apache.mina.common.ByteBuffer;
 import org.apache.mina.common.IoSession;
@@ -33,29 +35,48 @@ public class LLRPBinaryEncoder implements ProtocolEncoder {
 
 	Logger log = Logger.getLogger(LLRPBinaryEncoder.class);
 
+	private static final int INITIAL_BUFFER_SIZE = 256;
+
+	// size of the largest message seen so far, used as first guess. The
+	// encoder is shared between sessions, a lost update only costs a retry
+	private volatile int bufferSize = INITIAL_BUFFER_SIZE;
+
 	public void dispose(IoSession session) throws Exception {
 		// nothing to dispose
 	}
 
 	/**
-	 * convert LLRPMessage object to binary format
+	 * convert LLRPMessage object to binary format. The message is written
+	 * directly into a buffer taken from the MINA allocator. If it does not
+	 * fit, the buffer is released and the message encoded again into one of
+	 * twice the size.
 	*/
 	
 	public void encode(IoSession session, Object message,
 			ProtocolEncoderOutput out) throws Exception {
 		LLRPMessage llrp = (LLRPMessage) message;
 		log.debug("encoding message " + llrp.getClass());
-		byte[] byteMsg;
-		try {
-			byteMsg = llrp.encodeBinary();
-		} catch (InvalidLLRPMessageException me) {
-			log.warn("no message written because error occured: "
-					+ me.getMessage());
-			return;
-		}
+		int size = bufferSize;
 		// Note: ByteBuffer is renamed in MINA to IOBuffer
-		ByteBuffer buffer = ByteBuffer.allocate(byteMsg.length, false);
-		buffer.put(byteMsg);
+		ByteBuffer buffer;
+		while (true) {
+			buffer = ByteBuffer.allocate(size, false);
+			try {
+				llrp.encodeBinary(buffer.buf());
+				break;
+			} catch (BufferOverflowException e) {
+				buffer.release();
+				size *= 2;
+			} catch (InvalidLLRPMessageException me) {
+				buffer.release();
+				log.warn("no message written because error occured: "
+						+ me.getMessage());
+				return;
+			}
+		}
+		if (size > bufferSize) {
+			bufferSize = size;
+		}
 		buffer.flip();
 		out.write(buffer);
 	}
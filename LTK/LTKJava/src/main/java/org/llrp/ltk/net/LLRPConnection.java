@@ -17,16 +17,34 @@
 
 package org.llrp.ltk.net;
 
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
+import org.apache.mina.common.IoFuture;
+import org.apache.mina.common.IoFutureListener;
+import org.apache.mina.common.IoService;
 import org.apache.mina.common.IoSession;
+import org.apache.mina.common.ThreadModel;
 import org.apache.mina.common.WriteFuture;
+import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.filter.executor.ExecutorFilter;
 import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
 import org.llrp.ltk.generated.parameters.ConnectionAttemptEvent;
 import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UnsignedInteger;
 
 /**
  * LLRPConnection represents an abstract interface for an LLRP connection at a LLRP reader or client. 
@@ -40,12 +58,45 @@ public abstract class LLRPConnection {
 	protected LLRPEndpoint endpoint;
 	protected LLRPIoHandlerAdapter handler;
 	protected IoSession session;
+	protected Executor decodeExecutor;
 	private Logger log = Logger.getLogger(LLRPConnection.class);
+	/** name of the message a reader answers with if it can not process a request */
+	private static final String ERROR_MESSAGE = "ERROR_MESSAGE";
+	/** runs the timeouts of transactAsync and of pooled connects of all connections */
+	static final ScheduledThreadPoolExecutor TIMEOUTS = createTimeoutScheduler();
+	/** requests sent with transactAsync waiting for their response, by message ID */
+	private final ConcurrentMap<Long, Transaction> transactions = new ConcurrentHashMap<Long, Transaction>();
+	private final AtomicLong nextMessageID = new AtomicLong(1);
 	
 	public LLRPConnection(){
 		handler = new LLRPIoHandlerAdapterImpl(this);
 	}
 	
+	/**
+	 * adds the LLRP codec to the filter chain of service. If a decode executor is set,
+	 * an ExecutorFilter is added in front of the codec: the I/O thread only reads the
+	 * bytes, decoding and the handler run on the executor. ExecutorFilter keeps the
+	 * events of a session in order, different sessions are decoded in parallel.
+	 * 
+	 * @param service connector or acceptor to be configured
+	 */
+	protected void addCodecFilter(IoService service) {
+		addCodecFilter(service, decodeExecutor);
+	}
+	
+	/**
+	 * adds the LLRP codec to the filter chain of service, decoded by decodeExecutor
+	 * if it is not null. Used as well for connectors shared by several connections.
+	 */
+	static void addCodecFilter(IoService service, Executor decodeExecutor) {
+		if (decodeExecutor != null) {
+			// no thread pool of MINA behind the codec, the executor does it all
+			service.getDefaultConfig().setThreadModel(ThreadModel.MANUAL);
+			service.getFilterChain().addLast("executor", new ExecutorFilter(decodeExecutor));
+		}
+		service.getFilterChain().addLast("codec", new ProtocolCodecFilter(new LLRPProtocolCodecFactory(LLRPProtocolCodecFactory.BINARY_ENCODING)));
+	}
+	
 	/**
 	 * check whether ConnectionAttemptStatus in READER_NOTIFICATION message was set by reader
 	 * to 'Success'. 
@@ -81,6 +132,56 @@ public abstract class LLRPConnection {
 	 */
 	public abstract boolean reconnect();
 	
+	/**
+	 * called when a message is to be sent on a session that is no longer connected.
+	 * The default reconnects and waits for the result, connections that reconnect
+	 * in the background start doing so and return false.
+	 * 
+	 * @return true if the session is connected again
+	 */
+	protected boolean reconnectOnDemand(){
+		return reconnect();
+	}
+	
+	/**
+	 * called by send for a message that can not be sent because the session is not
+	 * connected and reconnectOnDemand returned false. The default drops the message.
+	 * 
+	 * @param message LLRP message to be sent
+	 * @return true if the message is sent later, false if it is dropped
+	 */
+	protected boolean enqueue(LLRPMessage message){
+		return false;
+	}
+	
+	/**
+	 * called by the handler when a session was opened. The session becomes the
+	 * session of the connection by default.
+	 * 
+	 * @param session the opened session
+	 */
+	protected void sessionOpened(IoSession session){
+		this.session = session;
+	}
+	
+	/**
+	 * called by the handler when a ConnectionAttemptEvent arrived on session and was
+	 * added to the connection attempt event queue. Does nothing by default, the
+	 * event is taken from the queue by checkLLRPConnectionAttemptStatus.
+	 * 
+	 * @param session the session the event arrived on
+	 */
+	protected void connectionAttemptEventReceived(IoSession session){
+	}
+	
+	/**
+	 * called by the handler when the session was closed. Does nothing by default.
+	 * 
+	 * @param session the closed session
+	 */
+	protected void sessionClosed(IoSession session){
+	}
+	
 	/**
 	 * sends an LLRP message without waiting for a response message.
 	 * 
@@ -94,9 +195,9 @@ public abstract class LLRPConnection {
 		}
 		
 		if(!session.isConnected()){
-			if(reconnect()){
+			if(reconnectOnDemand()){
 				session.write(message);
-			}else{
+			}else if(!enqueue(message)){
 				log.info("session is not yet connected");
 				endpoint.errorOccured("session is not yet connected");
 			}
@@ -138,7 +239,7 @@ public abstract class LLRPConnection {
 		
 		LLRPMessage returnMessage = null;
 		if (!session.isConnected()){
-			if(!reconnect()){//reconnect failed
+			if(!reconnectOnDemand()){//reconnect failed
 				log.info("session is not yet connected");
 				endpoint.errorOccured("session is not yet connected");
 				return null;
@@ -171,6 +272,146 @@ public abstract class LLRPConnection {
 		return returnMessage;
 	}
 	
+	/**
+	 * sends an LLRP message and returns a future of the response message as defined
+	 * in the LLRP specification, without waiting for it. The response is matched by
+	 * the message ID of the request, so any number of requests can be outstanding on
+	 * the connection. If the message ID is already used by another outstanding request,
+	 * message is given a new one.
+	 * 
+	 * @param message LLRP message to be sent
+	 * @return future completed with the response message or an ERROR_MESSAGE with the
+	 * same message ID
+	 */
+	public CompletableFuture<LLRPMessage> transactAsync(LLRPMessage message){
+		return transactAsync(message, 0);
+	}
+	
+	/**
+	 * sends an LLRP message and returns a future of the response message as defined
+	 * in the LLRP specification, without waiting for it. The future fails with a 
+	 * TimeoutException if the response does not arrive within the time interval
+	 * specified, with an IOException if the message can not be sent or the session
+	 * is closed first.
+	 * <p>
+	 * Responses are matched by LLRPIoHandlerAdapterImpl, other handlers have to pass
+	 * incoming messages to completeTransaction.
+	 * 
+	 * @param message LLRP message to be sent
+	 * @param transactionTimeout timeout in ms, 0 to wait without limit
+	 * @return future completed with the response message or an ERROR_MESSAGE with the
+	 * same message ID
+	 * @throws IllegalArgumentException if message has no response message
+	 */
+	public CompletableFuture<LLRPMessage> transactAsync(final LLRPMessage message, final long transactionTimeout){
+		String returnMessageType = message.getResponseType();
+		if (returnMessageType.equals("")){
+			throw new IllegalArgumentException(message.getName() + " does not expect return message");
+		}
+		final Transaction transaction = new Transaction(returnMessageType);
+		if (session == null){
+			transaction.future.completeExceptionally(new IllegalStateException("session is not yet established"));
+			return transaction.future;
+		}
+		if (!session.isConnected() && !reconnectOnDemand()){
+			transaction.future.completeExceptionally(new IllegalStateException("session is not yet connected"));
+			return transaction.future;
+		}
+		
+		final Long messageID = register(message, transaction);
+		if (transactionTimeout > 0){
+			transaction.timeout = TIMEOUTS.schedule(new Runnable() {
+				public void run() {
+					if (transactions.remove(messageID, transaction)){
+						transaction.future.completeExceptionally(new TimeoutException(
+								"Request " + message.getName() + " timed out after " + transactionTimeout + " ms."));
+					}
+				}
+			}, transactionTimeout, TimeUnit.MILLISECONDS);
+		}
+		
+		WriteFuture writeFuture = session.write(message);
+		log.info(message.getName() + " transact async, message ID " + messageID);
+		writeFuture.addListener(new IoFutureListener() {
+			public void operationComplete(IoFuture future) {
+				if (!((WriteFuture) future).isWritten()){
+					fail(messageID, transaction, new IOException(message.getName() + " could not be sent"));
+				}
+			}
+		});
+		return transaction.future;
+	}
+	
+	/**
+	 * completes the future returned by transactAsync for the request with the message
+	 * ID of response, if response is its response message or an ERROR_MESSAGE. 
+	 * 
+	 * @param response incoming LLRP message
+	 * @return true if response answered an outstanding request of transactAsync
+	 */
+	public boolean completeTransaction(LLRPMessage response){
+		if (transactions.isEmpty()){
+			return false;
+		}
+		Long messageID = Long.valueOf(response.getMessageID().longValue());
+		Transaction transaction = transactions.get(messageID);
+		if (transaction == null 
+				|| !(transaction.responseType.equals(response.getName()) || ERROR_MESSAGE.equals(response.getName()))
+				|| !transactions.remove(messageID, transaction)){
+			return false;
+		}
+		transaction.cancelTimeout();
+		transaction.future.complete(response);
+		return true;
+	}
+	
+	/**
+	 * fails the futures of all requests of transactAsync still waiting for a response,
+	 * called when the session is closed.
+	 * 
+	 * @param cause exception the futures fail with
+	 */
+	public void failTransactions(Throwable cause){
+		for (Iterator<Map.Entry<Long, Transaction>> i = transactions.entrySet().iterator(); i.hasNext();){
+			Map.Entry<Long, Transaction> entry = i.next();
+			fail(entry.getKey(), entry.getValue(), cause);
+		}
+	}
+	
+	private void fail(Long messageID, Transaction transaction, Throwable cause){
+		if (transactions.remove(messageID, transaction)){
+			transaction.cancelTimeout();
+			transaction.future.completeExceptionally(cause);
+		}
+	}
+	
+	/**
+	 * adds transaction under the message ID of message, which is replaced by a new
+	 * one if it is in use.
+	 */
+	private Long register(LLRPMessage message, Transaction transaction){
+		Long messageID = Long.valueOf(message.getMessageID().longValue());
+		while (transactions.putIfAbsent(messageID, transaction) != null){
+			// message IDs are 32 bit unsigned
+			messageID = Long.valueOf(nextMessageID.getAndIncrement() & 0xFFFFFFFFL);
+			message.setMessageID(new UnsignedInteger(messageID.longValue()));
+		}
+		return messageID;
+	}
+	
+	private static ScheduledThreadPoolExecutor createTimeoutScheduler(){
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "LLRPConnection timeouts");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		// answered requests do not keep their timeouts in the queue
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+	
 	/**
 	 * returns the endpoint which receives incoming LLRPMessages
 	 * 
@@ -207,5 +448,48 @@ public abstract class LLRPConnection {
 		this.handler = handler;
 	}
 	
+	/**
+	 * returns the executor that decodes incoming messages, null if they are decoded
+	 * on the I/O thread of MINA.
+	 * 
+	 * @return the decode executor
+	 */
+	public Executor getDecodeExecutor() {
+		return decodeExecutor;
+	}
+
+	/**
+	 * sets the executor that decodes incoming messages and calls the handler, for
+	 * example a fixed thread pool or an executor starting a virtual thread per task.
+	 * A slow decode of a large message then no longer holds up reading from the
+	 * sockets. Messages of a connection are still decoded and delivered in order.
+	 * Takes effect with the next connect or bind, the executor is not shut down
+	 * by the connection.
+	 * 
+	 * @param decodeExecutor the executor, null to decode on the I/O thread
+	 */
+	public void setDecodeExecutor(Executor decodeExecutor) {
+		this.decodeExecutor = decodeExecutor;
+	}
+	
+	/**
+	 * request of transactAsync waiting for its response.
+	 */
+	private static final class Transaction {
+		final String responseType;
+		final CompletableFuture<LLRPMessage> future = new CompletableFuture<LLRPMessage>();
+		volatile ScheduledFuture<?> timeout;
+		
+		Transaction(String responseType){
+			this.responseType = responseType;
+		}
+		
+		void cancelTimeout(){
+			ScheduledFuture<?> t = timeout;
+			if (t != null){
+				t.cancel(false);
+			}
+		}
+	}
 	
 }
@@ -18,12 +18,26 @@
 package org.llrp.ltk.net;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 import org.apache.log4j.Logger;
 import org.apache.mina.common.CloseFuture;
 import org.apache.mina.common.ConnectFuture;
-import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.common.IoFuture;
+import org.apache.mina.common.IoFutureListener;
+import org.apache.mina.common.IoSession;
 import org.apache.mina.transport.socket.nio.SocketConnector;
+import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
+import org.llrp.ltk.generated.parameters.ConnectionAttemptEvent;
+import org.llrp.ltk.types.LLRPMessage;
 
 /**
  * LLRPConnector implements a self-initiated LLRP connection. 
@@ -43,6 +57,14 @@ import org.apache.mina.transport.socket.nio.SocketConnector;
  * The connect method checks the status of the ConnectionAttemptStatus field in 
  * in the READER_EVENT_NOTIFICATION message. If the status field is not 'Success", 
  * an LLRPConnectionAttemptFailedException is thrown. 
+ * <p>
+ * If the session is lost, the connector reconnects in the background, waiting
+ * with exponential backoff and jitter between the attempts, until it succeeds
+ * or disconnect is called. Meanwhile send queues messages in a bounded buffer
+ * that is sent once the reader is connected again, and transact fails at once.
+ * No method waits for a reconnect except reconnect itself, and no thread is
+ * blocked while the attempts are running. The new session is used only once
+ * the reader reported a successful ConnectionAttemptEvent.
  */
 
 public class LLRPConnector extends LLRPConnection{
@@ -51,6 +73,14 @@ public class LLRPConnector extends LLRPConnection{
 	private int port = 5084;
 	private org.apache.mina.transport.socket.nio.SocketConnector connector;
 	private InetSocketAddress remoteAddress;
+	private final AtomicBoolean reconnecting = new AtomicBoolean();
+	private volatile boolean disconnectRequested;
+	/** connection attempt waiting for its ConnectionAttemptEvent */
+	private volatile Attempt attempt;
+	private volatile boolean autoReconnect = true;
+	private volatile long initialReconnectDelay = 500;
+	private volatile long maxReconnectDelay = 60000;
+	private volatile BlockingQueue<LLRPMessage> pendingMessages = new LinkedBlockingQueue<LLRPMessage>(100);
 	
 
 	public LLRPConnector() {
@@ -127,8 +157,9 @@ public class LLRPConnector extends LLRPConnection{
 	 */
 	
 	public void connect(long timeout) throws LLRPConnectionAttemptFailedException{
+		disconnectRequested = false;
 		connector = new SocketConnector();
-		connector.getFilterChain().addLast("codec", new ProtocolCodecFilter(new LLRPProtocolCodecFactory(LLRPProtocolCodecFactory.BINARY_ENCODING)));
+		addCodecFilter(connector);
 		// MINA 2.0 method 
 		//connector.setHandler(handler);
 		remoteAddress = new InetSocketAddress(host, port);
@@ -151,11 +182,35 @@ public class LLRPConnector extends LLRPConnection{
 	}
 
 	
+	/**
+	 * starts connecting to the LLRP device with connector, which can be shared with 
+	 * other LLRPConnectors, and returns without waiting. The READER_NOTIFICATION
+	 * with the ConnectionAttemptEvent arrives at the handler as usual.
+	 * 
+	 * @param connector connector with the LLRP codec in its filter chain
+	 * @param timeout time in ms
+	 * @return future completed with the session once the reader reported a successful
+	 * ConnectionAttemptEvent, failed with a LLRPConnectionAttemptFailedException otherwise
+	 */
+	
+	CompletableFuture<IoSession> connect(SocketConnector connector, long timeout){
+		disconnectRequested = false;
+		this.connector = connector;
+		remoteAddress = new InetSocketAddress(host, port);
+		return new Attempt().start(timeout);
+	}
+	
 	/**
 	 * disconnect existing connection to LLRP device.
 	 */
 	
 	public void disconnect(){
+		// no reconnect when the session is closed
+		disconnectRequested = true;
+		Attempt pending = attempt;
+		if (pending != null){
+			pending.fail("disconnected");
+		}
 		//IoSession session = future.getSession();
 		if (session != null && session.isConnected()){
 			CloseFuture future = session.close();
@@ -174,32 +229,351 @@ public class LLRPConnector extends LLRPConnection{
 	 */
 	
 	public boolean reconnect() {
-		ConnectFuture future = connector.connect(remoteAddress,handler);
-		future.join();		// Wait until the connection attempt is finished.
-		// MINA 2.0
-		// future = connector.connect();
-		// future.awaitUninterruptibly();
-		
-		if(future.isConnected()){
-			session = future.getSession();
-			log.info("new session created:" + session);
-		} else {
+		//the client shall not send any information to the reader until the status report message
+		//is received, the session is used only once the attempt succeeded
+		try {
+			new Attempt().start(CONNECT_TIMEOUT).get();
+		} catch (ExecutionException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			return false;
 		}
+		return true;
+	}
+	
+
+	/**
+	 * connects like connect(timeout), without blocking the caller.
+	 * 
+	 * @param timeout time in ms
+	 * @return future completed once connected, failed with a 
+	 * LLRPConnectionAttemptFailedException otherwise
+	 */
+	
+	public CompletableFuture<LLRPConnector> connectAsync(long timeout){
+		disconnectRequested = false;
+		connector = new SocketConnector();
+		addCodecFilter(connector);
+		remoteAddress = new InetSocketAddress(host, port);
+		final CompletableFuture<LLRPConnector> future = new CompletableFuture<LLRPConnector>();
+		new Attempt().start(timeout).whenComplete(new BiConsumer<IoSession, Throwable>() {
+			public void accept(IoSession connected, Throwable failure) {
+				if (failure == null){
+					future.complete(LLRPConnector.this);
+				} else {
+					future.completeExceptionally(failure);
+				}
+			}
+		});
+		return future;
+	}
+	
+	/**
+	 * starts reconnecting in the background unless auto reconnect is off. 
+	 * 
+	 * @return true if auto reconnect is off and reconnect succeeded, false otherwise
+	 */
+	
+	protected boolean reconnectOnDemand(){
+		if (!autoReconnect){
+			return reconnect();
+		}
+		startReconnect();
+		return false;
+	}
+	
+	/**
+	 * queues message to be sent once the connector reconnected.
+	 * 
+	 * @return false if auto reconnect is off or the queue is full
+	 */
+	
+	protected boolean enqueue(LLRPMessage message){
+		BlockingQueue<LLRPMessage> queue = pendingMessages;
+		if (!autoReconnect || queue == null || !queue.offer(message)){
+			return false;
+		}
+		if (!reconnecting.get() && session != null && session.isConnected()){
+			// the reconnect finished after the message was found not sendable
+			flushPendingMessages();
+		}
+		return true;
+	}
+	
+	/**
+	 * sessions are used once the connection attempt succeeded, not when they are opened.
+	 */
+	
+	protected void sessionOpened(IoSession opened){
+	}
+	
+	/**
+	 * passes the ConnectionAttemptEvent to the connection attempt waiting for it.
+	 */
+	
+	protected void connectionAttemptEventReceived(IoSession received){
+		Attempt pending = attempt;
+		if (pending != null){
+			pending.eventReceived(received);
+		}
+	}
+	
+	/**
+	 * starts reconnecting in the background if the session was lost.
+	 */
+	
+	protected void sessionClosed(IoSession closed){
+		Attempt pending = attempt;
+		if (pending != null && closed == pending.opened){
+			pending.fail("session closed before ConnectionAttemptEvent");
+		}
+		if (autoReconnect && !disconnectRequested && closed == session){
+			startReconnect();
+		}
+	}
+	
+	private void startReconnect(){
+		if (!disconnectRequested && reconnecting.compareAndSet(false, true)){
+			log.info("reconnecting to " + host + ":" + port);
+			scheduleReconnect(0, 0);
+		}
+	}
+	
+	private void scheduleReconnect(long delay, final int number){
+		TIMEOUTS.schedule(new Runnable() {
+			public void run() {
+				attemptReconnect(number);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+	
+	private void attemptReconnect(final int number){
+		if (disconnectRequested){
+			stopReconnect();
+			return;
+		}
+		CompletableFuture<IoSession> result;
+		try {
+			result = new Attempt().start(CONNECT_TIMEOUT);
+		} catch (RuntimeException e) {
+			log.warn("reconnect to " + host + ":" + port + " failed: " + e.getMessage());
+			retry(number);
+			return;
+		}
+		result.whenComplete(new BiConsumer<IoSession, Throwable>() {
+			public void accept(IoSession connected, Throwable failure) {
+				if (disconnectRequested){
+					stopReconnect();
+				} else if (failure == null){
+					log.info("reconnected to " + host + ":" + port + " after " + (number + 1) + " attempts");
+					reconnecting.set(false);
+					flushPendingMessages();
+				} else {
+					retry(number);
+				}
+			}
+		});
+	}
+	
+	private void retry(int number){
+		long delay = reconnectDelay(number);
+		log.info("reconnect to " + host + ":" + port + " failed, next attempt in " + delay + " ms");
+		scheduleReconnect(delay, number + 1);
+	}
+	
+	private void stopReconnect(){
+		reconnecting.set(false);
+		dropPendingMessages("disconnected, message not sent");
+	}
+	
+	/**
+	 * delay before the attempt after attempt: initialReconnectDelay doubled with each
+	 * attempt up to maxReconnectDelay, of which a random half is waited, so that
+	 * connectors losing their readers at the same time do not retry together.
+	 */
+	private long reconnectDelay(int attempt){
+		long delay = Math.min(maxReconnectDelay, initialReconnectDelay << Math.min(attempt, 30));
+		long half = Math.max(1, delay / 2);
+		return half + ThreadLocalRandom.current().nextLong(half);
+	}
+	
+	private void flushPendingMessages(){
+		BlockingQueue<LLRPMessage> queue = pendingMessages;
+		if (queue == null){
+			return;
+		}
+		LLRPMessage message;
+		while ((message = queue.poll()) != null){
+			session.write(message);
+		}
+	}
+	
+	private void dropPendingMessages(String reason){
+		BlockingQueue<LLRPMessage> queue = pendingMessages;
+		if (queue == null){
+			return;
+		}
+		LLRPMessage message;
+		while ((message = queue.poll()) != null){
+			endpoint.errorOccured(reason + ": " + message.getName());
+		}
+	}
+	
+	/**
+	 * a connection attempt that does not block a thread: the socket is connected by
+	 * the connector, the ConnectionAttemptEvent is passed on by the handler and the
+	 * timeout is scheduled. The session becomes the session of the connector only
+	 * once the reader reported success, so that nothing is sent before.
+	 */
+	private final class Attempt implements IoFutureListener {
+		final CompletableFuture<IoSession> result = new CompletableFuture<IoSession>();
+		volatile IoSession opened;
+		private volatile ScheduledFuture<?> timeout;
+		private boolean finished;
+		private volatile boolean failed;
 		
-		//check if llrp reader reply with a status report to indicate connection success.
-		//the client shall not send any information to the reader until this status report message is received
+		CompletableFuture<IoSession> start(final long timeoutMillis){
+			attempt = this;
+			timeout = TIMEOUTS.schedule(new Runnable() {
+				public void run() {
+					fail("Connection request timed out after " + timeoutMillis + " ms.");
+				}
+			}, timeoutMillis, TimeUnit.MILLISECONDS);
+			connector.connect(remoteAddress, handler).addListener(this);
+			return result;
+		}
 		
-		try {
-			checkLLRPConnectionAttemptStatus(CONNECT_TIMEOUT);
-		} catch (LLRPConnectionAttemptFailedException e) {
-			return false;
+		public void operationComplete(IoFuture future){
+			ConnectFuture connectFuture = (ConnectFuture) future;
+			if (!connectFuture.isConnected()){
+				fail("failed to connect");
+				return;
+			}
+			opened = connectFuture.getSession();
+			if (failed){
+				// timed out while connecting the socket
+				opened.close();
+			}
+		}
+		
+		void eventReceived(IoSession received){
+			opened = received;
+			ConnectionAttemptEvent event = handler.getConnectionAttemptEventQueue().poll();
+			if (event == null){
+				return;
+			}
+			ConnectionAttemptStatusType status = event.getStatus();
+			if (status.intValue() == ConnectionAttemptStatusType.Success){
+				log.info("LLRP reader reported successfull connection attempt (ConnectionAttemptEvent.Status = " + status.toString() + ")");
+				succeed(received);
+			} else {
+				fail("LLRP reader reported failed connection attempt (ConnectionAttemptStatus = " + status.toString() + ")");
+			}
 		}
+		
+		private void succeed(IoSession connected){
+			synchronized (this) {
+				if (!finish()){
+					return;
+				}
+				session = connected;
+				log.info("new session created:" + connected);
+			}
+			result.complete(connected);
+		}
+		
+		// the future is completed outside the lock, its callbacks may take other locks
+		
+		void fail(String message){
+			synchronized (this) {
+				if (!finish()){
+					return;
+				}
+				failed = true;
+			}
+			IoSession refused = opened;
+			if (refused != null){
+				// socket connected but the reader refused the connection
+				refused.close();
+			}
+			result.completeExceptionally(new LLRPConnectionAttemptFailedException(message));
+		}
+		
+		private boolean finish(){
+			if (finished){
+				return false;
+			}
+			finished = true;
+			if (attempt == this){
+				attempt = null;
+			}
+			ScheduledFuture<?> t = timeout;
+			if (t != null){
+				t.cancel(false);
+			}
+			return true;
+		}
+	}
 	
-		return true;
+	/**
+	 * returns true while the connector is reconnecting in the background.
+	 * 
+	 * @return reconnecting
+	 */
+	public boolean isReconnecting() {
+		return reconnecting.get();
 	}
 	
+	/**
+	 * returns whether a lost session is reconnected in the background.
+	 * 
+	 * @return the autoReconnect
+	 */
+	public boolean isAutoReconnect() {
+		return autoReconnect;
+	}
 
+	/**
+	 * sets whether a lost session is reconnected in the background, the default.
+	 * If false, send and transact reconnect and wait for the result as before.
+	 * 
+	 * @param autoReconnect the autoReconnect to set
+	 */
+	public void setAutoReconnect(boolean autoReconnect) {
+		this.autoReconnect = autoReconnect;
+	}
+
+	/**
+	 * sets the delays between reconnect attempts: the first retry waits about
+	 * initialDelay, each further retry twice as long up to maxDelay. The delays
+	 * are randomized by up to half.
+	 * 
+	 * @param initialDelay delay in ms after the first failed attempt
+	 * @param maxDelay maximum delay in ms
+	 */
+	public void setReconnectDelay(long initialDelay, long maxDelay) {
+		if (initialDelay < 1 || maxDelay < initialDelay){
+			throw new IllegalArgumentException("invalid reconnect delays " + initialDelay + ", " + maxDelay);
+		}
+		this.initialReconnectDelay = initialDelay;
+		this.maxReconnectDelay = maxDelay;
+	}
+
+	/**
+	 * sets how many messages send queues while reconnecting, 100 by default. If
+	 * the queue is full or capacity is 0, send fails at once and the endpoint is
+	 * told. Messages already queued are dropped.
+	 * 
+	 * @param capacity maximum number of queued messages
+	 */
+	public void setPendingMessageCapacity(int capacity) {
+		if (capacity < 0){
+			throw new IllegalArgumentException("capacity must not be negative but is " + capacity);
+		}
+		this.pendingMessages = capacity == 0 ? null : new LinkedBlockingQueue<LLRPMessage>(capacity);
+	}
+	
 	/**
 	 * get host address of reader device.
 	 * 
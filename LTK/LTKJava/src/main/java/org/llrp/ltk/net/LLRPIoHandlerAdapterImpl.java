@@ -17,6 +17,7 @@
 
 package org.llrp.ltk.net;
 
+import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -60,7 +61,20 @@ public class LLRPIoHandlerAdapterImpl extends LLRPIoHandlerAdapter{
 	
 	public void sessionOpened(IoSession session) throws Exception {
 		log.debug("session is opened:"+session);
-		this.connection.session = session;
+		this.connection.sessionOpened(session);
+	}
+
+	/**
+	 * fails all requests of LLRPConnection.transactAsync still waiting for
+	 * their response and notifies the connection, which may start to reconnect.
+	 */
+	
+	public void sessionClosed(IoSession session) throws Exception {
+		log.debug("session is closed:"+session);
+		if (connection != null) {
+			connection.failTransactions(new IOException("session closed"));
+			connection.sessionClosed(session);
+		}
 	}
 
 	/**
@@ -70,7 +84,8 @@ public class LLRPIoHandlerAdapterImpl extends LLRPIoHandlerAdapter{
 	 * the getConnectionAttemptEventQueue method. messageReceived also checks whether the 
 	 * incoming message is a response to previously method sent via the LLRPConnection.transact 
 	 * method. Matching messages are stored in a queue that can be retrieved via the 
-	 * getSynMessageQueue() method. All incoming messages except KEEP_ALIVE and those identified
+	 * getSynMessageQueue() method. Responses to LLRPConnection.transactAsync complete
+	 * the future of their request instead. All incoming messages except KEEP_ALIVE and those identified
 	 * as synchronous responses to the LLRPConnection.transact method are passed to the
 	 * LLRPEndpoint registered.
 	 */
@@ -97,11 +112,18 @@ public class LLRPIoHandlerAdapterImpl extends LLRPIoHandlerAdapter{
 			 ConnectionAttemptEvent connectionAttemptEvent = ((READER_EVENT_NOTIFICATION)message).getReaderEventNotificationData().getConnectionAttemptEvent();
 			 if(connectionAttemptEvent != null){
 				 connectionAttemptEventQueue.add(connectionAttemptEvent);
+				 connection.connectionAttemptEventReceived(session);
 				 connection.getEndpoint().messageReceived(llrpMessage);
 				 return;
 			 }
 		}
 		
+		// responses to transactAsync are matched by message ID
+		if (connection.completeTransaction(llrpMessage)) {
+			log.debug("Completed transaction of message "+message.getClass()+" "+session);
+			return;
+		}
+		
 		String expectedSyncMessage = (String) session.getAttribute(LLRPConnection.SYNC_MESSAGE_ANSWER);
 		// send message only if not already handled by synchronous call
 		if (!llrpMessage.getName().equals(expectedSyncMessage)){
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package org.llrp.ltk.net;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+import org.apache.log4j.Logger;
+import org.apache.mina.common.IoSession;
+import org.apache.mina.transport.socket.nio.SocketConnector;
+import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
+import org.llrp.ltk.generated.messages.READER_EVENT_NOTIFICATION;
+import org.llrp.ltk.generated.parameters.ConnectionAttemptEvent;
+import org.llrp.ltk.generated.parameters.ReaderEventNotificationData;
+import org.llrp.ltk.types.LLRPMessage;
+
+/**
+ * LLRPReaderPool manages self-initiated connections to any number of LLRP readers
+ * over a single MINA SocketConnector. All sessions share its I/O processor threads
+ * and filter chain, so the number of threads does not grow with the number of readers.
+ * <p>
+ * connect does not block: it returns a future that completes once the reader reported
+ * a successful ConnectionAttemptEvent. A reader that loses its session is reconnected
+ * in the background by its LLRPConnector. The state of each reader is tracked by the pool,
+ * and the messages, errors and state changes of all readers are passed to the listeners
+ * registered.
+ * <p>
+ * Here is a simple code example:
+ * <p>
+ * <code> LLRPReaderPool pool = new LLRPReaderPool(); </code> <p>
+ * <code> pool.addListener(listener); </code> <p>
+ * <code> for (String host : hosts) { </code> <p>
+ * <code> &nbsp;&nbsp;pool.connect(host, 5084, null, 10000); </code> <p>
+ * <code> } </code> <p>
+ * <code> // messages of all readers arrive via listener.messageReceived </code> <p>
+ * <code> pool.getConnector(host, 5084).send(llrpmessage); </code>
+ */
+
+public class LLRPReaderPool {
+
+	/**
+	 * state of a reader in the pool.
+	 */
+	public enum State {
+		/** socket connect or ConnectionAttemptEvent pending */
+		CONNECTING,
+		/** reader reported a successful ConnectionAttemptEvent */
+		CONNECTED,
+		/** connection attempt failed or timed out */
+		FAILED,
+		/** session closed after it was connected */
+		DISCONNECTED
+	}
+
+	/**
+	 * receives the messages, errors and state changes of all readers of a pool. The
+	 * methods are called by the threads of the pool and must not block.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param reader connection the message was received on
+		 * @param message LLRP message received asynchronously
+		 */
+		public void messageReceived(LLRPConnector reader, LLRPMessage message);
+
+		/**
+		 * @param reader connection the error occurred on
+		 * @param message description of the error
+		 */
+		public void errorOccured(LLRPConnector reader, String message);
+
+		/**
+		 * @param reader connection whose state changed
+		 * @param state new state
+		 */
+		public void stateChanged(LLRPConnector reader, State state);
+	}
+
+	private static final Logger log = Logger.getLogger(LLRPReaderPool.class);
+	private final ExecutorService ioExecutor = Executors.newCachedThreadPool();
+	private final SocketConnector connector;
+	private final ConcurrentMap<String, Reader> readers = new ConcurrentHashMap<String, Reader>();
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	/**
+	 * pool with one I/O processor per available processor, decoding incoming messages
+	 * on the I/O processors.
+	 */
+	public LLRPReaderPool() {
+		this(Runtime.getRuntime().availableProcessors(), null);
+	}
+
+	/**
+	 * pool with the number of I/O processors specified.
+	 *
+	 * @param ioProcessors number of threads reading and writing the sockets of all readers
+	 * @param decodeExecutor executor decoding incoming messages, null to decode on the
+	 * I/O processors. See LLRPConnection.setDecodeExecutor.
+	 */
+	public LLRPReaderPool(int ioProcessors, Executor decodeExecutor) {
+		if (ioProcessors < 1) {
+			throw new IllegalArgumentException("ioProcessors must be at least 1 but is " + ioProcessors);
+		}
+		connector = new SocketConnector(ioProcessors, ioExecutor);
+		LLRPConnection.addCodecFilter(connector, decodeExecutor);
+	}
+
+	/**
+	 * starts connecting to the reader at host and port without blocking. If the reader
+	 * is already connected or connecting, the future of that attempt is returned.
+	 *
+	 * @param host address of the reader
+	 * @param port port of the reader, usually 5084
+	 * @param endpoint receives the messages of this reader in addition to the listeners,
+	 * may be null
+	 * @param timeout time in ms to wait for the ConnectionAttemptEvent
+	 * @return future completed with the connector once the reader reported a successful
+	 * ConnectionAttemptEvent, failed with a LLRPConnectionAttemptFailedException otherwise
+	 */
+	public CompletableFuture<LLRPConnector> connect(String host, int port, LLRPEndpoint endpoint, long timeout) {
+		String key = key(host, port);
+		Reader reader = new Reader(host, port, endpoint);
+		Reader existing = readers.putIfAbsent(key, reader);
+		while (existing != null) {
+			if (existing.state == State.CONNECTING || existing.state == State.CONNECTED) {
+				return existing.connected;
+			}
+			// connect again after a failure or disconnect
+			if (readers.replace(key, existing, reader)) {
+				// stops a reconnect in the background
+				existing.close();
+				break;
+			}
+			existing = readers.putIfAbsent(key, reader);
+		}
+		reader.start(timeout);
+		return reader.connected;
+	}
+
+	/**
+	 * disconnects the reader at host and port and removes it from the pool.
+	 *
+	 * @param host address of the reader
+	 * @param port port of the reader
+	 */
+	public void disconnect(String host, int port) {
+		Reader reader = readers.remove(key(host, port));
+		if (reader != null) {
+			reader.close();
+		}
+	}
+
+	/**
+	 * disconnects all readers and stops the I/O processors. The pool can not be used
+	 * afterwards.
+	 */
+	public void close() {
+		for (Reader reader : readers.values()) {
+			reader.close();
+		}
+		readers.clear();
+		ioExecutor.shutdown();
+	}
+
+	/**
+	 * @param host address of the reader
+	 * @param port port of the reader
+	 * @return connector of the reader, null if it is not in the pool
+	 */
+	public LLRPConnector getConnector(String host, int port) {
+		Reader reader = readers.get(key(host, port));
+		return reader == null ? null : reader.connector;
+	}
+
+	/**
+	 * @param host address of the reader
+	 * @param port port of the reader
+	 * @return state of the reader, null if it is not in the pool
+	 */
+	public State getState(String host, int port) {
+		Reader reader = readers.get(key(host, port));
+		return reader == null ? null : reader.state;
+	}
+
+	/**
+	 * @return state of all readers in the pool by "host:port"
+	 */
+	public Map<String, State> getStates() {
+		Map<String, State> states = new HashMap<String, State>();
+		for (Map.Entry<String, Reader> entry : readers.entrySet()) {
+			states.put(entry.getKey(), entry.getValue().state);
+		}
+		return states;
+	}
+
+	/**
+	 * @return number of readers in the pool
+	 */
+	public int size() {
+		return readers.size();
+	}
+
+	/**
+	 * @param listener receives the messages, errors and state changes of all readers
+	 */
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * @param listener to be removed
+	 */
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	private static String key(String host, int port) {
+		return host + ":" + port;
+	}
+
+	/**
+	 * a reader of the pool, the endpoint of its connector.
+	 */
+	private final class Reader implements LLRPEndpoint {
+		final LLRPConnector connector;
+		final LLRPEndpoint endpoint;
+		final CompletableFuture<LLRPConnector> connected = new CompletableFuture<LLRPConnector>();
+		volatile State state = State.CONNECTING;
+
+		Reader(String host, int port, LLRPEndpoint endpoint) {
+			this.endpoint = endpoint;
+			connector = new LLRPConnector(this, host, port);
+			connector.setHandler(new LLRPIoHandlerAdapterImpl(connector) {
+				public void sessionClosed(IoSession session) throws Exception {
+					super.sessionClosed(session);
+					closed();
+				}
+			});
+		}
+
+		void start(long timeoutMillis) {
+			// a reader starts out CONNECTING, setState would not report it
+			stateChanged(State.CONNECTING);
+			connector.connect(LLRPReaderPool.this.connector, timeoutMillis).whenComplete(new BiConsumer<IoSession, Throwable>() {
+				public void accept(IoSession session, Throwable failure) {
+					if (failure == null) {
+						connected();
+					} else {
+						fail(failure.getMessage());
+					}
+				}
+			});
+		}
+
+		public void messageReceived(LLRPMessage message) {
+			if (state == State.DISCONNECTED && message instanceof READER_EVENT_NOTIFICATION) {
+				ReaderEventNotificationData data = ((READER_EVENT_NOTIFICATION) message).getReaderEventNotificationData();
+				ConnectionAttemptEvent event = data == null ? null : data.getConnectionAttemptEvent();
+				if (event != null && event.getStatus().intValue() == ConnectionAttemptStatusType.Success) {
+					// the connector reconnected in the background
+					reconnected();
+				}
+			}
+			if (endpoint != null) {
+				endpoint.messageReceived(message);
+			}
+			for (Listener listener : listeners) {
+				listener.messageReceived(connector, message);
+			}
+		}
+
+		public void errorOccured(String message) {
+			if (endpoint != null) {
+				endpoint.errorOccured(message);
+			}
+			for (Listener listener : listeners) {
+				listener.errorOccured(connector, message);
+			}
+		}
+
+		// state is set before the future completes, so that it is current for its callers
+
+		private synchronized void connected() {
+			if (!connected.isDone()) {
+				log.info("reader " + connector.getHost() + ":" + connector.getPort() + " connected");
+				setState(State.CONNECTED);
+				connected.complete(connector);
+			}
+		}
+
+		private synchronized void fail(String message) {
+			if (!connected.isDone()) {
+				log.info("reader " + connector.getHost() + ":" + connector.getPort() + ": " + message);
+				setState(State.FAILED);
+				connector.disconnect();
+				connected.completeExceptionally(new LLRPConnectionAttemptFailedException(message));
+			}
+		}
+
+		private synchronized void closed() {
+			if (state == State.CONNECTED) {
+				setState(State.DISCONNECTED);
+			} else {
+				fail("session closed before ConnectionAttemptEvent");
+			}
+		}
+
+		private synchronized void reconnected() {
+			if (state == State.DISCONNECTED) {
+				setState(State.CONNECTED);
+			}
+		}
+
+		void close() {
+			connector.disconnect();
+		}
+
+		/**
+		 * listeners are only told about actual changes, not again for every session
+		 * of a reconnect attempt the reader refuses.
+		 */
+		private void setState(State state) {
+			if (this.state != state) {
+				this.state = state;
+				stateChanged(state);
+			}
+		}
+
+		private void stateChanged(State state) {
+			for (Listener listener : listeners) {
+				listener.stateChanged(connector, state);
+			}
+		}
+	}
+}
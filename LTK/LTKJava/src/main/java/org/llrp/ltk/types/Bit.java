@@ -14,12 +14,17 @@
  */
 package org.llrp.ltk.types;
 
+
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 /**
  * A single bit
@@ -173,7 +178,7 @@ public class Bit extends LLRPNumberType {
 	}
 	
 	public int intValue(){
-		return toInteger().intValue();
+		return value.intValue();
 	}
 
 	@Override
@@ -193,6 +198,12 @@ public class Bit extends LLRPNumberType {
 		return element;
 	}
 
+	@Override
+	public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+			throws XMLStreamException {
+		XMLStreamUtil.writeElement(writer, name, ns, value.toString());
+	}
+
 	@Override
 	public void decodeBinary(LLRPBitList list) {
 		if (list.get(0)) {
@@ -89,25 +89,25 @@ public class BitArray_HEX extends BitArray {
 		// if you don't have a number of bits evenly divisible by 8, then put a
 		// Count attribute to indicate the actual total number of bits you are
 		// attempting to represent.
-		String bitString = "";
-		for (int i = 0; i < bits.length; i++) {
-			bitString += bits[i];
-		}
-		int mod = bitString.length() % 8;
+		int mod = bits.length % 8;
+		// number of zeros added to front
+		int padding = 0;
 		if (mod != 0) {
-			element.setAttribute("Count", new Integer(bitString.length())
+			element.setAttribute("Count", new Integer(bits.length)
 					.toString());
-			// add zeros to front
-			for (int a = 0; a < 8 - mod; a++) {
-				bitString = "0" + bitString;
-			}
+			padding = 8 - mod;
 		}
-		String result = "";
-		for (int i = 0; i < bitString.length(); i = i + 4) {
-			result += Integer.toHexString(Integer.parseInt(bitString.substring(
-					i, i + 4), 2));
+		StringBuilder result = new StringBuilder((padding + bits.length) / 4);
+		int nibble = 0;
+		for (int i = 0; i < padding + bits.length; i++) {
+			int bit = (i < padding) ? 0 : bits[i - padding].toInteger();
+			nibble = (nibble << 1) | bit;
+			if (i % 4 == 3) {
+				LLRPNumberFormat.appendHex(result, nibble, 1);
+				nibble = 0;
+			}
 		}
-		element.setContent(new Text(result));
+		element.setContent(new Text(result.toString()));
 
 		return element;
 	}
@@ -259,23 +259,17 @@ public class BitList extends LLRPType {
 
 
 	public String toString() {
-		 String s = "";
+		StringBuilder sb = new StringBuilder(bits.length);
 
-	        for (Bit b : bits) {
-	            s += b.toInteger().toString();
-	        }
-
-	        s = s.replaceFirst(" ", "");
-	        return s;
+		for (Bit b : bits) {
+			sb.append(b.toString());
+		}
+		return sb.toString();
 	}
 	
 	public String toString(int radix){
-        String s = "";
-
-        for (Bit b : bits) {
-            s += Integer.toString(b.toInteger(),radix);
-        }
-        return s;
+		// a bit has the same single digit in every radix
+		return toString();
 	}
 	
 	/**
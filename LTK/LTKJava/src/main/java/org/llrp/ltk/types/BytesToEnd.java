@@ -176,21 +176,21 @@ public class BytesToEnd extends LLRPType {
     
 	
 	public String toString() {
-		 String s = "";
+		StringBuilder sb = new StringBuilder(bytes.size() * 4);
 
-	        for (SignedByte b : bytes) {
-	            s += b.toString();
-	        }
-	        return s;
+		for (SignedByte b : bytes) {
+			sb.append(b.toString());
+		}
+		return sb.toString();
 	}
 	
 	public String toString(int radix){
-        String s = "";
+		StringBuilder sb = new StringBuilder(bytes.size() * 4);
 
-        for (SignedByte b : bytes) {
-            s += b.toString(radix);
-        }
-        return s;
+		for (SignedByte b : bytes) {
+			sb.append(b.toString(radix));
+		}
+		return sb.toString();
 	}
 	
 	/**
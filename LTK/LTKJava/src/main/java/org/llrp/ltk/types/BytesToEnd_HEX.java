@@ -85,24 +85,19 @@ public class BytesToEnd_HEX extends BytesToEnd {
 	 * @return String 
 	 */
 	public String toString() {
-		String s = "";
-		int i = 0;
+		StringBuilder sb = new StringBuilder(bytes.size() * 2);
 		for (SignedByte b : bytes) {
 
 			if (b != null) {
-				// a byte must always consitst of two hexadecimal digits. If
-				// integer is smaller than 16 and therefore only needs one hex
-				// digit,add 0
-				String t = Integer.toHexString(b.value);
-				if (t.length() < 2) {
-					t = "0" + t;
+				// a byte must always consitst of two hexadecimal digits
+				if (b.value < 0) {
+					sb.append(Integer.toHexString(b.value));
+				} else {
+					LLRPNumberFormat.appendHex(sb, b.value, 2);
 				}
-				s += t;
-				i++;
-
 			}
 		}
-		return s;
+		return sb.toString();
 	}
 
 }
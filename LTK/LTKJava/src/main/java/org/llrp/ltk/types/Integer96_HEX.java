@@ -4,9 +4,13 @@ import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 /**
  * 96 bit Integer encoded in HEX Format
  * @author Basil Gasser - ETH Zurich
@@ -30,7 +34,8 @@ public class Integer96_HEX extends UnsignedInteger96 {
     }
 
     public Integer96_HEX(String string) {
-        super(new BigInteger(string, 16));
+        super();
+        decodeHex(string);
     }
     
     public Integer96_HEX(String string, int radix){
@@ -55,15 +60,53 @@ public class Integer96_HEX extends UnsignedInteger96 {
         return element;
     }
 
+    @Override
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+            throws XMLStreamException {
+        XMLStreamUtil.writeElement(writer, name, ns, toString());
+    }
+
     @Override
     public void decodeXML(Element element) {
-        this.value = new BigInteger(element.getText(), 16);
+        decodeHex(element.getText());
+    }
+
+    /**
+     * parse hex digits directly into the two words. Strings that are not
+     * plain hex digits (like a sign) go through BigInteger.
+     */
+    private void decodeHex(String string) {
+        if (string.length() == 0) {
+            // let BigInteger throw the NumberFormatException
+            setValue(new BigInteger(string, 16));
+
+            return;
+        }
+
+        long h = 0;
+        long l = 0;
+
+        for (int i = 0; i < string.length(); i++) {
+            int digit = Character.digit(string.charAt(i), 16);
+
+            if (digit < 0) {
+                setValue(new BigInteger(string, 16));
+
+                return;
+            }
+
+            h = (h << 4) | (l >>> 60);
+            l = (l << 4) | digit;
+        }
+
+        high = h & 0xFFFFFFFFL;
+        low = l;
     }
     
 	
 	public String toString() {
 		  // need even number of digits
-        String s = value.toString(16);
+        String s = toString(16);
 
         if ((s.length() % 2) != 0) {
             s = "0" + s;
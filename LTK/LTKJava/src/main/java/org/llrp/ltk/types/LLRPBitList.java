@@ -15,24 +15,41 @@
  */
 package org.llrp.ltk.types;
 
-import java.util.BitSet;
-
 
 /**
  * A list of bits used for binary representation of messages.
+ * <p>
+ * Bits are packed into an array of longs in network order: bit 0 of the
+ * list is the most significant bit of the first word. For a list that owns
+ * its words, bits beyond the length of the list are always 0, which allows
+ * append, pad, equals and the byte array conversions to work on whole words
+ * instead of single bits.
+ * <p>
+ * subList does not copy. It returns a view, an offset/length window onto
+ * the same words, and marks both lists as shared. Shared words are never
+ * written: the first modifying call on a shared list (add, append, clear,
+ * set, pad) copies its bits into a private array first. Decoding a nested
+ * message therefore copies the message bytes once, not once per nesting
+ * level, and sublists still behave like independent copies.
  *
  * @author Basil Gasser - ETH Zurich
  */
 public class LLRPBitList {
-    private BitSet bits;
-    private Integer length;
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final int BIT_INDEX_MASK = BITS_PER_WORD - 1;
+    private static final long[] EMPTY = new long[0];
+
+    private long[] words;
+    private int offset;
+    private int length;
+    private boolean shared;
 
     /**
      * Creates a new LLRPBitList object.
      */
     public LLRPBitList() {
-        bits = new BitSet(0);
-        bits.clear(0);
+        words = EMPTY;
         length = 0;
     }
 
@@ -42,23 +59,12 @@ public class LLRPBitList {
      * @param bytes interpreted in order they appear in array
      */
     public LLRPBitList(byte[] bytes) {
-        bits = new BitSet(bytes.length * 8);
         length = bytes.length * 8;
+        words = new long[wordCount(length)];
 
-        // iterate over all bytes
+        // eight bytes go into one word, first byte in the most significant position
         for (int i = 0; i < bytes.length; i++) {
-            Integer position = 8 * (i + 1);
-            byte b = bytes[i];
-
-            // iterate over each bit of one byte
-            for (int j = 0; j < 8; j++) {
-                // use bitarithmetic to set (1) or clear (0) a bit
-                if ((b & (1 << j)) > 0) {
-                    bits.set(position - j - 1);
-                } else {
-                    bits.clear(position + j);
-                }
-            }
+            words[i >>> 3] |= (bytes[i] & 0xFFL) << (56 - ((i & 7) << 3));
         }
     }
 
@@ -68,14 +74,12 @@ public class LLRPBitList {
      * @param bitString to be decoded
      */
     public LLRPBitList(String bitString) {
-        bits = new BitSet(bitString.length());
         length = bitString.length();
+        words = new long[wordCount(length)];
 
-        for (int i = 0; i < bitString.length(); i++) {
-            if (bitString.charAt(i) == '0') {
-                bits.clear(i);
-            } else {
-                bits.set(i);
+        for (int i = 0; i < length; i++) {
+            if (bitString.charAt(i) != '0') {
+                words[i >>> ADDRESS_BITS_PER_WORD] |= bit(i);
             }
         }
     }
@@ -87,7 +91,12 @@ public class LLRPBitList {
      *            length of bit list
      */
     public LLRPBitList(int n) {
-        bits = new BitSet(n);
+        if (n < 0) {
+            throw new IllegalArgumentException(
+                "illegal argument: bit list length must not be negative");
+        }
+
+        words = new long[wordCount(n)];
         length = n;
     }
 
@@ -97,10 +106,11 @@ public class LLRPBitList {
      * @param bit to be added
      */
     public void add(boolean bit) {
+        unshare();
+        ensureCapacity(length + 1);
+
         if (bit) {
-            bits.set(length);
-        } else {
-            bits.clear(length);
+            words[length >>> ADDRESS_BITS_PER_WORD] |= bit(length);
         }
 
         length++;
@@ -113,19 +123,11 @@ public class LLRPBitList {
      *            bit list
      */
     public void append(LLRPBitList other) {
-        int oldLength = length;
-
-        for (int i = 0; i < other.length; i++) {
-            length++;
-
-            // the used BiSet adjust the length of the underlying BitSet
-            // automatically
-            if (other.bits.get(i)) {
-                bits.set(oldLength + i);
-            } else {
-                bits.clear(oldLength + i);
-            }
-        }
+        int otherLength = other.length;
+        unshare();
+        ensureCapacity(length + otherLength);
+        copyBits(other, 0, words, length, otherLength);
+        length += otherLength;
     }
 
     /**
@@ -134,9 +136,14 @@ public class LLRPBitList {
      * @param position to clear
      */
     public void clear(int position) {
-        bits.clear(position);
+        checkPosition(position);
+
+        if (position < length) {
+            unshare();
+            words[position >>> ADDRESS_BITS_PER_WORD] &= ~bit(position);
+        }
     }
-    
+
     public void clear(Integer i){
     	clear(i.intValue());
     }
@@ -153,9 +160,13 @@ public class LLRPBitList {
             // we just don't clone super
         }
 
+        // the clone shares the words, whichever list is modified first copies
         LLRPBitList n = new LLRPBitList();
-        n.bits = (BitSet) bits.clone();
+        n.words = words;
+        n.offset = offset;
         n.length = length;
+        n.shared = true;
+        shared = true;
 
         return n;
     }
@@ -168,12 +179,12 @@ public class LLRPBitList {
      * @return boolean
      */
     public boolean equals(LLRPBitList other) {
-        if (other.length.compareTo(length) != 0) {
+        if (other == null || other.length != length) {
             return false;
         }
 
-        for (int i = 0; i < length; i++) {
-            if (this.get(i) ^ other.get(i)) {
+        for (int i = 0; i < length; i += BITS_PER_WORD) {
+            if (chunkAt(i) != other.chunkAt(i)) {
                 return false;
             }
         }
@@ -181,6 +192,10 @@ public class LLRPBitList {
         return true;
     }
 
+    public boolean equals(Object other) {
+        return (other instanceof LLRPBitList) && equals((LLRPBitList) other);
+    }
+
     /**
      * get bit as boolean value at specified position.
      *
@@ -190,7 +205,13 @@ public class LLRPBitList {
      * @return returns true (bit set) or false
      */
     public boolean get(int position) {
-        return bits.get(position);
+        checkPosition(position);
+
+        if (position >= length) {
+            return false;
+        }
+
+        return testBit(offset + position);
     }
 
     public boolean get(Integer i){
@@ -212,45 +233,50 @@ public class LLRPBitList {
      *            of bits to add at front
      */
     public void pad(int number) {
-        // new bitset of length number
-        BitSet n = new BitSet(number);
-
-        for (int i = 0; i < length; i++) {
-            if (bits.get(i)) {
-                n.set(number + i);
-            } else {
-                n.clear(number + i);
-            }
+        if (number < 0) {
+            throw new IllegalArgumentException(
+                "illegal argument: trying to pad a negative number of bits");
         }
 
+        long[] n = new long[wordCount(length + number)];
+        copyBits(this, 0, n, number, length);
         length += number;
-        bits = n;
+        words = n;
+        offset = 0;
+        shared = false;
     }
-    
+
     public void pad(Integer i){
     	pad(i.intValue());
     }
 
     /**
-     * set bit at specified position to true.
+     * set bit at specified position to true. The list grows if position
+     * lies beyond its end.
      *
      * @param position
      *            start at index 0
      */
     public void set(int position) {
-        if (position > length) {
+        checkPosition(position);
+
+        unshare();
+
+        if (position >= length) {
+            ensureCapacity(position + 1);
             length = position + 1;
         }
 
-        bits.set(position);
+        words[position >>> ADDRESS_BITS_PER_WORD] |= bit(position);
     }
 
     public void set(Integer i){
     	set(i.intValue());
     }
     /**
-     * return a list containing a copy of the elements starting at from, having
-     * length length.
+     * return a list containing the elements starting at from, having length
+     * length. The returned list is a view sharing the bits of this list; a
+     * later change to either list does not affect the other.
      *
      * @param from
      *            where sublist starts, list start at Index 0
@@ -268,24 +294,52 @@ public class LLRPBitList {
                 "illegal argument: trying to start sublist at negative position");
         }
 
+        if (subLength < 0) {
+            throw new IllegalArgumentException(
+                "illegal argument: trying to create sublist with negative length");
+        }
+
         if (length < (from + subLength)) {
             // logger.error("list not long enough. List has "+length+" elements,
             // tried to get sublist from "+from+" with length "+subLength);
             throw new IllegalArgumentException("illegal argument: from plus sublist length longer than existing list");
         }
 
-        // return a new bitlist containing copies of the elements
-        LLRPBitList b = new LLRPBitList(subLength);
+        // return a view on the same words, nothing is copied
+        LLRPBitList b = new LLRPBitList();
+        b.words = words;
+        b.offset = offset + from;
+        b.length = subLength;
+        b.shared = true;
+        shared = true;
 
-        for (int i = 0; i < subLength; i++) {
-            if (bits.get(from + i)) {
-                b.set(i);
-            } else {
-                b.clear(i);
-            }
+        return b;
+    }
+
+    /**
+     * up to 32 bits starting at from as unsigned value. Used to look at type
+     * and length fields without creating a sublist.
+     *
+     * @param from where the field starts, list start at Index 0
+     * @param n number of bits, at most 32
+     *
+     * @return int, reading 32 bits returns the raw int
+     */
+    public int intValue(int from, int n) {
+        if ((from < 0) || (n < 0) || (n > 32)) {
+            throw new IllegalArgumentException(
+                "illegal argument: trying to read " + n + " bits at " + from);
         }
 
-        return b;
+        if (length < (from + n)) {
+            throw new IllegalArgumentException("illegal argument: from plus sublist length longer than existing list");
+        }
+
+        if (n == 0) {
+            return 0;
+        }
+
+        return (int) (wordAt(offset + from) >>> (BITS_PER_WORD - n));
     }
 
     /**
@@ -294,11 +348,16 @@ public class LLRPBitList {
      * @return byte Array
      */
     public byte[] toByteArray() {
-        Integer nOFb = (length / 8);
+        int nOFb = length / 8;
         byte[] result = new byte[nOFb];
 
-        for (int i = 0; i < nOFb; i++) {
-            result[i] = new Byte(new SignedByte(subList(8 * i, 8)).toByte());
+        for (int i = 0; i < nOFb; i += 8) {
+            long w = chunkAt(i << 3);
+            int end = Math.min(i + 8, nOFb);
+
+            for (int j = i; j < end; j++) {
+                result[j] = (byte) (w >>> (56 - ((j & 7) << 3)));
+            }
         }
 
         return result;
@@ -310,20 +369,135 @@ public class LLRPBitList {
      * @return String
      */
     public String toString() {
-        String s = "";
+        char[] s = new char[length];
 
         for (int i = 0; i < length; i++) {
-            if (bits.get(i)) {
-                s = s + "1";
-            } else {
-                s = s + "0";
-            }
+            s[i] = testBit(offset + i) ? '1' : '0';
         }
 
-        return s;
+        return new String(s);
     }
 
     public int hashCode() {
-        return bits.hashCode();
+        int h = length;
+
+        for (int i = 0; i < length; i += BITS_PER_WORD) {
+            long w = chunkAt(i);
+            h = 31 * h + (int) (w ^ (w >>> 32));
+        }
+
+        return h;
+    }
+
+    /**
+     * number of words needed to hold the given number of bits.
+     */
+    private static int wordCount(int bits) {
+        return (bits + BIT_INDEX_MASK) >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    /**
+     * mask selecting the bit at position within its word.
+     */
+    private static long bit(int position) {
+        return 1L << (BIT_INDEX_MASK - (position & BIT_INDEX_MASK));
+    }
+
+    private static void checkPosition(int position) {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("position < 0: " + position);
+        }
+    }
+
+    private boolean testBit(int absolute) {
+        return (words[absolute >>> ADDRESS_BITS_PER_WORD] & bit(absolute)) != 0;
+    }
+
+    /**
+     * make sure this list owns its words before it gets modified. Shared
+     * words are copied into a private array starting at offset 0.
+     */
+    private void unshare() {
+        if (shared) {
+            long[] n = new long[wordCount(length)];
+            copyBits(this, 0, n, 0, length);
+            words = n;
+            offset = 0;
+            shared = false;
+        }
+    }
+
+    /**
+     * grow the word array so that it can hold at least the given number
+     * of bits. Capacity is doubled to keep repeated appends linear.
+     */
+    private void ensureCapacity(int bits) {
+        int required = wordCount(bits);
+
+        if (words.length < required) {
+            long[] n = new long[Math.max(required, words.length * 2)];
+            System.arraycopy(words, 0, n, 0, words.length);
+            words = n;
+        }
+    }
+
+    /**
+     * up to 64 bits of this list starting at from, left aligned. Bits past
+     * the end of the list are returned as 0.
+     */
+    private long chunkAt(int from) {
+        long w = wordAt(offset + from);
+        int remaining = length - from;
+
+        if (remaining < BITS_PER_WORD) {
+            w &= ~(-1L >>> remaining);
+        }
+
+        return w;
+    }
+
+    /**
+     * 64 bits of the word array starting at absolute position from, left
+     * aligned. Bits past the word array are returned as 0.
+     */
+    private long wordAt(int from) {
+        int index = from >>> ADDRESS_BITS_PER_WORD;
+        int shift = from & BIT_INDEX_MASK;
+        long w = words[index] << shift;
+
+        if ((shift != 0) && ((index + 1) < words.length)) {
+            w |= words[index + 1] >>> (BITS_PER_WORD - shift);
+        }
+
+        return w;
+    }
+
+    /**
+     * copy n bits from src starting at srcPos (relative to the list) into
+     * dst starting at dstPos. The target range in dst must be all 0, bits
+     * are or-ed in.
+     */
+    private static void copyBits(LLRPBitList src, int srcPos, long[] dst,
+        int dstPos, int n) {
+        while (n > 0) {
+            int chunk = Math.min(n, BITS_PER_WORD);
+            long w = src.wordAt(src.offset + srcPos);
+
+            if (chunk < BITS_PER_WORD) {
+                w &= ~(-1L >>> chunk);
+            }
+
+            int index = dstPos >>> ADDRESS_BITS_PER_WORD;
+            int shift = dstPos & BIT_INDEX_MASK;
+            dst[index] |= w >>> shift;
+
+            if ((shift != 0) && ((shift + chunk) > BITS_PER_WORD)) {
+                dst[index + 1] |= w << (BITS_PER_WORD - shift);
+            }
+
+            srcPos += chunk;
+            dstPos += chunk;
+            n -= chunk;
+        }
     }
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.types;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * Bit cursor over a ByteBuffer holding a binary encoded LLRP message. It is
+ * used by the ByteBuffer decode path of messages and parameters as an
+ * alternative to slicing LLRPBitLists.
+ * <p>
+ * Positions are bit offsets relative to the position the buffer had when
+ * the reader was created. Whole bytes, shorts, ints and longs at byte aligned
+ * positions are read with the absolute get methods of the buffer; only sub-byte
+ * and unaligned fields are assembled bit by bit. The buffer itself is never
+ * modified, its position and limit stay untouched.
+ * <p>
+ * Reading past the end throws an IllegalArgumentException, the same exception
+ * LLRPBitList.subList throws, so both decode paths fail the same way on
+ * truncated input.
+ */
+public class LLRPBitReader {
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int limit;
+    private int position;
+
+    /**
+     * reader over the remaining bytes of buffer.
+     *
+     * @param buffer containing the encoded message
+     */
+    public LLRPBitReader(ByteBuffer buffer) {
+        // duplicate shares the content but not byte order or position
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.base = buffer.position();
+        this.limit = buffer.remaining() * 8;
+        this.position = 0;
+    }
+
+    /**
+     * reader over the given bytes.
+     *
+     * @param bytes containing the encoded message
+     */
+    public LLRPBitReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * current bit position.
+     *
+     * @return int
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * set current bit position.
+     *
+     * @param position bit position, must not be past the limit
+     */
+    public void position(int position) {
+        if ((position < 0) || (position > limit)) {
+            throw new IllegalArgumentException(
+                "illegal argument: position " + position + " outside of 0.." + limit);
+        }
+
+        this.position = position;
+    }
+
+    /**
+     * number of bits in this reader.
+     *
+     * @return int
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * move the position forward.
+     *
+     * @param bits number of bits to skip
+     */
+    public void skip(int bits) {
+        position(position + bits);
+    }
+
+    /**
+     * make sure that bits are available at the current position without
+     * crossing end.
+     *
+     * @param bits number of bits needed
+     * @param end bit position that must not be crossed
+     *
+     * @throws IllegalArgumentException if not enough bits are available
+     */
+    public void checkAvailable(int bits, int end) {
+        if ((bits < 0) || ((position + bits) > Math.min(end, limit))) {
+            throw new IllegalArgumentException(
+                "illegal argument: from plus sublist length longer than existing list");
+        }
+    }
+
+    /**
+     * read a single bit.
+     *
+     * @return true if bit is set
+     */
+    public boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * read up to 32 bits as unsigned value. Reading 32 bits returns the raw int.
+     *
+     * @param n number of bits
+     *
+     * @return int
+     */
+    public int readBits(int n) {
+        int value = (int) getBits(position, n);
+        position += n;
+
+        return value;
+    }
+
+    /**
+     * read a 32 bit field as unsigned value.
+     *
+     * @return long between 0 and 2^32-1
+     */
+    public long readUnsignedInt() {
+        long value = getBits(position, 32);
+        position += 32;
+
+        return value;
+    }
+
+    /**
+     * read a 64 bit field.
+     *
+     * @return long, u64 values greater than Long.MAX_VALUE are negative
+     */
+    public long readLong() {
+        long value = getLong(position);
+        position += 64;
+
+        return value;
+    }
+
+    /**
+     * read n bits into a new LLRPBitList. Used for types that are not read
+     * directly from the buffer.
+     *
+     * @param n number of bits
+     *
+     * @return LLRPBitList holding a copy of the bits
+     */
+    public LLRPBitList readBitList(int n) {
+        checkRange(position, n);
+
+        int first = position >>> 3;
+        int shift = position & 7;
+        byte[] bytes = new byte[(shift + n + 7) >>> 3];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(base + first + i);
+        }
+
+        LLRPBitList list = new LLRPBitList(bytes);
+        position += n;
+
+        if ((shift == 0) && (list.length() == n)) {
+            return list;
+        }
+
+        return list.subList(shift, n);
+    }
+
+    /**
+     * read up to 32 bits at position without moving the cursor.
+     *
+     * @param at bit position
+     * @param n number of bits
+     *
+     * @return int
+     */
+    public int peekBits(int at, int n) {
+        return (int) getBits(at, n);
+    }
+
+    /**
+     * type number of the parameter starting at the current position. The first
+     * bit tells a TV parameter (7 bit type) from a TLV parameter (10 bit type
+     * after 6 reserved bits).
+     *
+     * @param end bit position where the enclosing message or parameter ends
+     *
+     * @return type number or -1 if there are not enough bits left for a
+     *         parameter header
+     */
+    public int peekParameterType(int end) {
+        int available = Math.min(end, limit) - position;
+
+        if (available < 8) {
+            return -1;
+        }
+
+        int first = (int) getBits(position, 8);
+
+        if ((first & 0x80) != 0) {
+            return first & 0x7F;
+        }
+
+        if (available < 32) {
+            return -1;
+        }
+
+        return (int) getBits(position, 16) & 0x3FF;
+    }
+
+    /**
+     * true if the parameter at the current position is a TV parameter.
+     *
+     * @return boolean
+     */
+    public boolean isTVParameter() {
+        return (getBits(position, 1) != 0);
+    }
+
+    /**
+     * length in bits of the TLV parameter starting at the current position as
+     * given in its header.
+     *
+     * @return int
+     */
+    public int peekParameterLength() {
+        return 8 * (int) getBits(position + 16, 16);
+    }
+
+    private void checkRange(int at, int n) {
+        if ((at < 0) || (n < 0) || ((at + n) > limit)) {
+            throw new IllegalArgumentException(
+                "illegal argument: from plus sublist length longer than existing list");
+        }
+    }
+
+    /**
+     * up to 32 bits at bit position at as unsigned value.
+     */
+    private long getBits(int at, int n) {
+        checkRange(at, n);
+
+        if (n == 0) {
+            return 0;
+        }
+
+        int index = base + (at >>> 3);
+
+        if ((at & 7) == 0) {
+            // aligned fields go straight to the buffer
+            switch (n) {
+            case 8:
+                return buffer.get(index) & 0xFFL;
+
+            case 16:
+                return buffer.getShort(index) & 0xFFFFL;
+
+            case 32:
+                return buffer.getInt(index) & 0xFFFFFFFFL;
+
+            default:
+                break;
+            }
+        }
+
+        // sub-byte or unaligned: collect the covering bytes and cut out the bits
+        int last = base + ((at + n - 1) >>> 3);
+        long acc = 0;
+
+        for (int i = index; i <= last; i++) {
+            acc = (acc << 8) | (buffer.get(i) & 0xFFL);
+        }
+
+        int trailing = 7 - ((at + n - 1) & 7);
+
+        return (acc >>> trailing) & ((1L << n) - 1);
+    }
+
+    private long getLong(int at) {
+        checkRange(at, 64);
+
+        if ((at & 7) == 0) {
+            return buffer.getLong(base + (at >>> 3));
+        }
+
+        return (getBits(at, 32) << 32) | getBits(at + 32, 32);
+    }
+}
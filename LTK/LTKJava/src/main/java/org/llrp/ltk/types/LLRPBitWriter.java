@@ -0,0 +1,221 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.types;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * Bit cursor writing a binary encoded LLRP message into a ByteBuffer. It is
+ * the counterpart of LLRPBitReader and used by the streaming encode path of
+ * messages and parameters.
+ * <p>
+ * Positions are bit offsets relative to the position the buffer had when the
+ * writer was created. Byte aligned 8/16/32/64 bit fields are written with the
+ * absolute put methods of the buffer, sub-byte fields are merged into the
+ * current byte. Length fields that are only known after the content has been
+ * written are back-patched with putBits. The buffer may be heap or direct and
+ * may contain old data; every bit up to the current position is written.
+ * Writing past the limit throws a BufferOverflowException.
+ */
+public class LLRPBitWriter {
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int limit;
+    private int position;
+
+    /**
+     * writer starting at the current position of buffer.
+     *
+     * @param buffer to write into, must not be read only
+     */
+    public LLRPBitWriter(ByteBuffer buffer) {
+        // duplicate shares the content but not byte order or position
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.base = buffer.position();
+        this.limit = buffer.remaining() * 8;
+        this.position = 0;
+    }
+
+    /**
+     * current bit position.
+     *
+     * @return int
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * number of bytes touched so far, a started byte counts as whole byte.
+     *
+     * @return int
+     */
+    public int byteLength() {
+        return (position + 7) >>> 3;
+    }
+
+    /**
+     * write the lowest n bits of value, n at most 32.
+     *
+     * @param value to write
+     * @param n number of bits
+     */
+    public void writeBits(int value, int n) {
+        putBits(position, value, n);
+        position += n;
+    }
+
+    /**
+     * write a 64 bit field.
+     *
+     * @param value to write
+     */
+    public void writeLong(long value) {
+        if ((position & 7) == 0) {
+            checkRange(position, 64);
+            buffer.putLong(base + (position >>> 3), value);
+            position += 64;
+        } else {
+            writeBits((int) (value >>> 32), 32);
+            writeBits((int) value, 32);
+        }
+    }
+
+    /**
+     * write n bits set to 0.
+     *
+     * @param n number of bits
+     */
+    public void writeZeros(int n) {
+        while (n > 0) {
+            int chunk = Math.min(n, 32);
+            writeBits(0, chunk);
+            n -= chunk;
+        }
+    }
+
+    /**
+     * write all bits of list. Used for types that have no direct encoding.
+     *
+     * @param bits to be written
+     */
+    public void write(LLRPBitList bits) {
+        int length = bits.length();
+        checkRange(position, length);
+
+        byte[] bytes = bits.toByteArray();
+
+        if ((position & 7) == 0) {
+            int index = base + (position >>> 3);
+
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(index + i, bytes[i]);
+            }
+
+            position += (bytes.length * 8);
+        } else {
+            for (int i = 0; i < bytes.length; i++) {
+                writeBits(bytes[i], 8);
+            }
+        }
+
+        // remaining bits of a list that does not end on a byte boundary
+        for (int i = bytes.length * 8; i < length; i++) {
+            writeBits(bits.get(i) ? 1 : 0, 1);
+        }
+    }
+
+    /**
+     * overwrite n bits at an absolute bit position without moving the
+     * cursor. Used to back-patch length fields.
+     *
+     * @param at bit position, must be before the current position
+     * @param value to write
+     * @param n number of bits, at most 32
+     */
+    public void patchBits(int at, int value, int n) {
+        if ((at + n) > position) {
+            throw new IllegalArgumentException(
+                "illegal argument: patch beyond current position");
+        }
+
+        putBits(at, value, n);
+    }
+
+    private void checkRange(int at, int n) {
+        if ((at < 0) || (n < 0)) {
+            throw new IllegalArgumentException(
+                "illegal argument: negative position or length");
+        }
+
+        if ((at + n) > limit) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    private void putBits(int at, int value, int n) {
+        checkRange(at, n);
+
+        int index = base + (at >>> 3);
+
+        if ((at & 7) == 0) {
+            // aligned fields go straight to the buffer
+            switch (n) {
+            case 8:
+                buffer.put(index, (byte) value);
+
+                return;
+
+            case 16:
+                buffer.putShort(index, (short) value);
+
+                return;
+
+            case 32:
+                buffer.putInt(index, value);
+
+                return;
+
+            default:
+                break;
+            }
+        }
+
+        // merge into the covering bytes, bits outside [at, at + n) are kept
+        // if they lie before the cursor and cleared otherwise
+        while (n > 0) {
+            int used = at & 7;
+            int free = 8 - used;
+            int take = Math.min(free, n);
+            int bits = (value >>> (n - take)) & ((1 << take) - 1);
+            int current = buffer.get(index) & 0xFF;
+            int keep = ~(((1 << take) - 1) << (free - take)) & 0xFF;
+
+            if ((at + take) >= position) {
+                // nothing valid after this field in this byte yet
+                keep &= (0xFF << free) & 0xFF;
+            }
+
+            buffer.put(index, (byte) ((current & keep) | (bits << (free - take))));
+            at += take;
+            n -= take;
+            index++;
+        }
+    }
+}
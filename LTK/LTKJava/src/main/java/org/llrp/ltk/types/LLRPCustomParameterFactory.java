@@ -0,0 +1,154 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.types;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Creates a vendor specific custom parameter from its binary encoding. All
+ * custom parameters share one type number and are told apart by vendor
+ * identifier and parameter subtype, the two 32 bit fields following the TLV
+ * header. Generated messages and parameters keep a table of the custom
+ * parameters they allow, so that a custom parameter is decoded once, straight
+ * into its vendor class.
+ */
+public abstract class LLRPCustomParameterFactory extends LLRPParameterFactory {
+    /* TLV header, vendor identifier and parameter subtype */
+    private static final int HEADERLENGTH = 96;
+    private static final int VENDOROFFSET = 32;
+    private static final int SUBTYPEOFFSET = 64;
+    private final long vendorIdentifier;
+    private final long parameterSubtype;
+
+    /**
+     * Creates a new LLRPCustomParameterFactory object.
+     *
+     * @param typeNum type number of custom parameters
+     * @param vendorIdentifier IANA private enterprise number of the vendor
+     * @param parameterSubtype vendor defined subtype
+     */
+    protected LLRPCustomParameterFactory(SignedShort typeNum,
+        long vendorIdentifier, long parameterSubtype) {
+        super(typeNum, 0);
+        this.vendorIdentifier = vendorIdentifier;
+        this.parameterSubtype = parameterSubtype;
+    }
+
+    /**
+     * vendor identifier of the parameters created.
+     *
+     * @return long
+     */
+    public long getVendorIdentifier() {
+        return vendorIdentifier;
+    }
+
+    /**
+     * parameter subtype of the parameters created.
+     *
+     * @return long
+     */
+    public long getParameterSubtype() {
+        return parameterSubtype;
+    }
+
+    /**
+     * map holding each factory under its vendor identifier and subtype.
+     *
+     * @param factories to put into the table
+     *
+     * @return Map
+     */
+    public static Map<Long, LLRPCustomParameterFactory> table(
+        LLRPCustomParameterFactory[] factories) {
+        Map<Long, LLRPCustomParameterFactory> table = new HashMap<Long, LLRPCustomParameterFactory>();
+
+        for (int i = 0; i < factories.length; i++) {
+            Long key = key(factories[i].vendorIdentifier,
+                    factories[i].parameterSubtype);
+
+            if (table.containsKey(key)) {
+                throw new IllegalArgumentException(
+                    "illegal argument: two factories for vendor " +
+                    factories[i].vendorIdentifier + " and subtype " +
+                    factories[i].parameterSubtype);
+            }
+
+            table.put(key, factories[i]);
+        }
+
+        return table;
+    }
+
+    /**
+     * factory for the custom parameter starting at position of bits.
+     *
+     * @param table created by table()
+     * @param bits holding the parameter
+     * @param position where the parameter starts
+     * @param length of the parameter in bits
+     *
+     * @return LLRPCustomParameterFactory or null if the vendor class is not in
+     *         table
+     */
+    public static LLRPCustomParameterFactory lookup(
+        Map<Long, LLRPCustomParameterFactory> table, LLRPBitList bits,
+        int position, int length) {
+        if (table.isEmpty() || (length < HEADERLENGTH)) {
+            return null;
+        }
+
+        return lookup(table, bits.intValue(position + VENDOROFFSET, 32),
+            bits.intValue(position + SUBTYPEOFFSET, 32));
+    }
+
+    /**
+     * factory for the custom parameter starting at the current position of
+     * reader.
+     *
+     * @param table created by table()
+     * @param reader positioned at the start of the parameter
+     * @param length of the parameter in bits
+     *
+     * @return LLRPCustomParameterFactory or null if the vendor class is not in
+     *         table
+     */
+    public static LLRPCustomParameterFactory lookup(
+        Map<Long, LLRPCustomParameterFactory> table, LLRPBitReader reader,
+        int length) {
+        if (table.isEmpty() || (length < HEADERLENGTH)) {
+            return null;
+        }
+
+        int position = reader.position();
+
+        return lookup(table, reader.peekBits(position + VENDOROFFSET, 32),
+            reader.peekBits(position + SUBTYPEOFFSET, 32));
+    }
+
+    private static LLRPCustomParameterFactory lookup(
+        Map<Long, LLRPCustomParameterFactory> table, int vendorIdentifier,
+        int parameterSubtype) {
+        return table.get(key(vendorIdentifier & 0xFFFFFFFFL,
+                parameterSubtype & 0xFFFFFFFFL));
+    }
+
+    private static Long key(long vendorIdentifier, long parameterSubtype) {
+        return new Long((vendorIdentifier << 32) | parameterSubtype);
+    }
+}
@@ -16,14 +16,21 @@
 package org.llrp.ltk.types;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
@@ -31,11 +38,12 @@ import javax.xml.validation.Validator;
 
 import org.apache.log4j.Logger;
 import org.jdom.Document;
-import org.jdom.output.Format;
-import org.jdom.output.XMLOutputter;
+import org.jdom.transform.JDOMSource;
 import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
 import org.llrp.ltk.exceptions.MissingParameterException;
 import org.llrp.ltk.util.LLRPExternalResourceResolver;
+import org.llrp.ltk.util.LLRPXMLOutputOptions;
+import org.llrp.ltk.util.XMLStreamUtil;
 import org.xml.sax.SAXException;
 
 /**
@@ -66,9 +74,25 @@ public abstract class LLRPMessage {
 	protected UnsignedInteger messageID = new UnsignedInteger();
 	protected UnsignedInteger messageLength = new UnsignedInteger();
 	
-	private Validator validator;
-	private static Map<String,Validator> validators = new HashMap<String,Validator>();
-	private static byte[] mutex = new byte[0];
+	// a Schema is thread safe and shared, a Validator is not and every
+	// thread keeps its own per schema path
+	private static final ConcurrentMap<String, Schema> schemas = new ConcurrentHashMap<String, Schema>();
+	private static final ThreadLocal<Map<String, Validator>> validators = new ThreadLocal<Map<String, Validator>>() {
+		protected Map<String, Validator> initialValue() {
+			return new HashMap<String, Validator>();
+		}
+	};
+
+	private static volatile LLRPValidationPolicy defaultValidationPolicy = LLRPValidationPolicy.ALWAYS;
+	private static volatile int validationSampleInterval = 100;
+	private static final AtomicLong validationCount = new AtomicLong();
+	private LLRPValidationPolicy validationPolicy;
+	// whether the document encodeXML is building for encodeXML(OutputStream)
+	// or encodeXML(XMLStreamWriter) is validated, decided before encodeXML is
+	// called so that validateXMLMessage does not ask the policy again
+	private static final ThreadLocal<Boolean> validationDecision = new ThreadLocal<Boolean>();
+
+	private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
 
 	/**
 	 * encode this message to binary formate.
@@ -108,6 +132,56 @@ public abstract class LLRPMessage {
 		}
 	}
 
+	/**
+	 * encode this message into buffer, starting at its current position. The
+	 * message is written field by field through an LLRPBitWriter and the
+	 * message length is back-patched once the body is written, so no
+	 * intermediate LLRPBitList or byte[] is needed. On success the position
+	 * of buffer is advanced by the length of the message.
+	 * 
+	 * @param buffer
+	 *            heap or direct buffer to write into
+	 * @return length of the message in bytes
+	 * @throws InvalidLLRPMessageException
+	 *             if a mandatory field or parameter is missing
+	 * @throws java.nio.BufferOverflowException
+	 *             if the message does not fit into the remaining bytes of
+	 *             buffer. The position of buffer is not changed in this case.
+	 */
+	public final int encodeBinary(ByteBuffer buffer)
+			throws InvalidLLRPMessageException {
+
+		try {
+
+			if (version == null) {
+				throw new MissingParameterException("version not set");
+			}
+
+			LLRPBitWriter writer = new LLRPBitWriter(buffer);
+			writer.write(reserved.encodeBinary());
+			writer.write(version.encodeBinary());
+			writer.writeBits(getTypeNum().intValue(), TYPENUMBERLENGTH);
+			// length is not known yet and patched below
+			int lengthPosition = writer.position();
+			writer.writeBits(0, UnsignedInteger.length());
+			writer.writeBits(messageID.intValue(), UnsignedInteger.length());
+			// call the message specific encode function
+			encodeBinarySpecific(writer);
+
+			int lengthBytes = writer.position() / 8;
+			writer.patchBits(lengthPosition, lengthBytes, UnsignedInteger
+					.length());
+			buffer.position(buffer.position() + lengthBytes);
+
+			return lengthBytes;
+
+		} catch (IllegalArgumentException e) {
+			throw new InvalidLLRPMessageException(e.getMessage(),e);
+		} catch (MissingParameterException e) {
+			throw new InvalidLLRPMessageException(e.getMessage(),e);
+		}
+	}
+
 	/**
 	 * encoding function - has to be implemented by each message.
 	 * 
@@ -116,6 +190,20 @@ public abstract class LLRPMessage {
 	protected abstract LLRPBitList encodeBinarySpecific()
 			throws InvalidLLRPMessageException;
 
+	/**
+	 * encode message body into writer. Generated messages override this to
+	 * write their fields directly; the default appends the result of
+	 * encodeBinarySpecific().
+	 * 
+	 * @param writer
+	 *            positioned after the message header
+	 * @throws InvalidLLRPMessageException
+	 */
+	protected void encodeBinarySpecific(LLRPBitWriter writer)
+			throws InvalidLLRPMessageException {
+		writer.write(encodeBinarySpecific());
+	}
+
 	/**
 	 * create message from byte[]. Will also be called from Constructor taking a
 	 * byte[] Argument
@@ -279,6 +367,80 @@ public abstract class LLRPMessage {
 		this.version = version;
 	}
 
+	/**
+	 * create message from the remaining bytes of a ByteBuffer. Header fields
+	 * are read with absolute gets and the body is decoded through an
+	 * LLRPBitReader, no LLRPBitList is built unless the message falls back to
+	 * decodeBinarySpecific(LLRPBitList). Position and limit of buffer are not
+	 * changed.
+	 * 
+	 * @param buffer
+	 *            holding exactly one message
+	 * 
+	 * @throws InvalidLLRPMessageException
+	 *             if message is not well formatted or has any other error
+	 */
+	public final void decodeBinary(ByteBuffer buffer)
+			throws InvalidLLRPMessageException {
+
+		try {
+
+			int start = buffer.position();
+			int available = buffer.remaining();
+
+			// message must have at least 80 bits for header
+			if (available * 8 < MINHEADERLENGTH) {
+				LOGGER.error("Bit String too short, must be at least 80, is "
+						+ available * 8);
+				throw new InvalidLLRPMessageException(
+						"Invalid binary message: Bit String is too short");
+			}
+
+			// reserved (3) | version (3) | type (10)
+			int head = ((buffer.get(start) & 0xFF) << 8)
+					| (buffer.get(start + 1) & 0xFF);
+			short messageType = (short) (head & 0x3FF);
+
+			if (messageType != getTypeNum().toShort()) {
+				LOGGER.error("incorrect type. Message of Type "
+						+ getTypeNum().toShort()
+						+ " expected, but message indicates " + messageType);
+				throw new InvalidLLRPMessageException(
+						"incorrect type. Message of Type "
+								+ getTypeNum().toShort()
+								+ " expected, but message indicates "
+								+ messageType);
+			}
+
+			version = new BitList(VERSIONLENGTH);
+			int versionBits = (head >>> TYPENUMBERLENGTH) & 0x7;
+
+			for (int i = 0; i < VERSIONLENGTH; i++) {
+				if ((versionBits & (1 << (VERSIONLENGTH - 1 - i))) != 0) {
+					version.set(i);
+				} else {
+					version.clear(i);
+				}
+			}
+
+			LLRPBitReader reader = new LLRPBitReader(buffer);
+			reader.position(SignedShort.length());
+			messageLength = new UnsignedInteger(reader.readUnsignedInt());
+			messageID = new UnsignedInteger(reader.readUnsignedInt());
+
+			if (messageLength.intValue() == available) {
+				decodeBinarySpecific(reader, reader.limit());
+			} else {
+				throw new InvalidLLRPMessageException("message length not equal to length given in message ");
+			}
+
+		} catch (IllegalArgumentException e) {
+			throw new InvalidLLRPMessageException(e.getMessage(),e);
+		} catch (MissingParameterException e) {
+			throw new InvalidLLRPMessageException(e.getMessage(),e);
+		}
+	}
+
 	/**
 	 * to be implemented by specific message.
 	 * 
@@ -290,6 +452,24 @@ public abstract class LLRPMessage {
 	protected abstract void decodeBinarySpecific(LLRPBitList bits)
 			throws InvalidLLRPMessageException;
 
+	/**
+	 * decode message body from reader, starting at the current position of the
+	 * reader and ending at end. Generated messages override this to read their
+	 * fields straight from the buffer; the default copies the body into an
+	 * LLRPBitList and calls decodeBinarySpecific(LLRPBitList).
+	 * 
+	 * @param reader
+	 *            positioned after the message header
+	 * @param end
+	 *            bit position where the message ends
+	 * 
+	 * @throws InvalidLLRPMessageException
+	 */
+	protected void decodeBinarySpecific(LLRPBitReader reader, int end)
+			throws InvalidLLRPMessageException {
+		decodeBinarySpecific(reader.readBitList(end - reader.position()));
+	}
+
 	/**
 	 * finalizeEncode sets the length of the message.
 	 * 
@@ -325,6 +505,75 @@ public abstract class LLRPMessage {
 	 */
 	public abstract Document encodeXML() throws InvalidLLRPMessageException;
 
+	/**
+	 * write this message as LTK XML to writer, element by element and
+	 * without building a document. The message is not validated. The default
+	 * writes the root element of encodeXML(), generated messages write their
+	 * elements directly.
+	 * 
+	 * @param writer
+	 *            to write the message element to
+	 * @throws InvalidLLRPMessageException
+	 * @throws XMLStreamException
+	 */
+	public void encodeXML(XMLStreamWriter writer)
+			throws InvalidLLRPMessageException, XMLStreamException {
+		XMLStreamUtil.writeContent(writer, encodeXML(false).getRootElement());
+	}
+
+	/**
+	 * write this message as LTK XML document in UTF-8 to out. The message is
+	 * streamed unless the validation policy asks for this message to be
+	 * validated, then the document is built and validated first. out is not
+	 * closed.
+	 * 
+	 * @param out
+	 *            stream to write to
+	 * @throws InvalidLLRPMessageException
+	 */
+	public void encodeXML(OutputStream out) throws InvalidLLRPMessageException {
+		encodeXML(out, isValidationDue());
+	}
+
+	/**
+	 * write this message as LTK XML document to out, building and validating
+	 * the document if validate is true and streaming it otherwise.
+	 */
+	private void encodeXML(OutputStream out, boolean validate)
+			throws InvalidLLRPMessageException {
+		try {
+			XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+
+			if (validate) {
+				XMLStreamUtil.writeContent(writer, encodeXML(true).getRootElement());
+			} else {
+				encodeXML(writer);
+			}
+
+			writer.writeEndDocument();
+			// closes the writer only, not out
+			writer.close();
+		} catch (XMLStreamException e) {
+			throw new InvalidLLRPMessageException(
+					"LTK XML message can not be written because " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * encodeXML() with the validation decided by the caller instead of the
+	 * validation policy.
+	 */
+	private Document encodeXML(boolean validate)
+			throws InvalidLLRPMessageException {
+		validationDecision.set(Boolean.valueOf(validate));
+		try {
+			return encodeXML();
+		} finally {
+			validationDecision.remove();
+		}
+	}
+
 	/**
 	 * create objects from xml.
 	 * 
@@ -337,7 +586,129 @@ public abstract class LLRPMessage {
 			throws InvalidLLRPMessageException;
 
 	/**
-	 * Check xml file against xml schema.
+	 * create objects from the LTK XML message element at the current position
+	 * of reader. Only this element is read, into a document of its own that is
+	 * decoded by decodeXML(Document). On return reader is positioned at the end
+	 * tag of the message element, so further messages can be read from the
+	 * same stream.
+	 * 
+	 * @param reader
+	 *            positioned at the start tag of the message element
+	 * @throws InvalidLLRPMessageException
+	 */
+	public void decodeXML(XMLStreamReader reader)
+			throws InvalidLLRPMessageException {
+		Document document;
+		try {
+			document = new Document(XMLStreamUtil.readElement(reader));
+		} catch (XMLStreamException e) {
+			throw new InvalidLLRPMessageException(
+					"LTK XML message can not be read because " + e.getMessage(), e);
+		}
+		decodeXML(document);
+	}
+
+	/**
+	 * policy used by messages that have no policy set of their own. The
+	 * default is ALWAYS.
+	 * 
+	 * @param policy
+	 *            NONE, SAMPLED or ALWAYS
+	 */
+	public static void setDefaultValidationPolicy(LLRPValidationPolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException("illegal argument: validation policy must not be null");
+		}
+		defaultValidationPolicy = policy;
+	}
+
+	/**
+	 * policy used by messages that have no policy set of their own.
+	 * 
+	 * @return LLRPValidationPolicy
+	 */
+	public static LLRPValidationPolicy getDefaultValidationPolicy() {
+		return defaultValidationPolicy;
+	}
+
+	/**
+	 * with policy SAMPLED every interval-th message encoded or decoded in
+	 * this JVM is validated. The default is 100.
+	 * 
+	 * @param interval
+	 *            number of messages per validated message, at least 1
+	 */
+	public static void setValidationSampleInterval(int interval) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("illegal argument: sample interval " + interval + " is less than 1");
+		}
+		validationSampleInterval = interval;
+	}
+
+	/**
+	 * set the policy for this message, overriding the default policy.
+	 * 
+	 * @param policy
+	 *            NONE, SAMPLED, ALWAYS or null to use the default policy
+	 */
+	public void setValidationPolicy(LLRPValidationPolicy policy) {
+		this.validationPolicy = policy;
+	}
+
+	/**
+	 * policy of this message.
+	 * 
+	 * @return LLRPValidationPolicy or null if the default policy is used
+	 */
+	public LLRPValidationPolicy getValidationPolicy() {
+		return validationPolicy;
+	}
+
+	/**
+	 * Check xml file against xml schema if the validation policy of this
+	 * message asks for it. Called by encodeXML and decodeXML.
+	 * 
+	 * @param jdomDoc
+	 *            to be checked
+	 * @param schemaPath
+	 *            path to xml schema file
+	 * 
+	 * @return boolean true if valid or not validated
+	 * @throws InvalidLLRPMessageException
+	 */
+	protected boolean validateXMLMessage(Document jdomDoc, String schemaPath)
+			throws InvalidLLRPMessageException {
+		Boolean decision = validationDecision.get();
+
+		if (decision == null ? !isValidationDue() : !decision.booleanValue()) {
+			return true;
+		}
+
+		return isValidXMLMessage(jdomDoc, schemaPath);
+	}
+
+	/**
+	 * whether the validation policy asks for this message to be validated now.
+	 * Counts the message if the policy is SAMPLED.
+	 */
+	private boolean isValidationDue() {
+		LLRPValidationPolicy policy = validationPolicy == null ? defaultValidationPolicy
+				: validationPolicy;
+
+		if (policy == LLRPValidationPolicy.NONE) {
+			return false;
+		}
+
+		if (policy == LLRPValidationPolicy.SAMPLED) {
+			return validationCount.getAndIncrement() % validationSampleInterval == 0;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Check xml file against xml schema. The document is validated as it is
+	 * in memory, it is not serialized.
 	 * 
 	 * @param jdomDoc
 	 *            to be checked
@@ -350,49 +721,16 @@ public abstract class LLRPMessage {
 	public boolean isValidXMLMessage(Document jdomDoc, String schemaPath)
 			throws InvalidLLRPMessageException {
 		try {
-			// create input stream of jdomDoc
-			XMLOutputter output = new XMLOutputter();
-			ByteArrayOutputStream stream = new ByteArrayOutputStream();
-			output.output(jdomDoc, stream);
-
-			byte[] a = stream.toByteArray();
-			InputStream is = new ByteArrayInputStream(a);
-			
-			synchronized (mutex) {
-				
-				// get the validator for the schemaPath specified
-				validator = validators.get(schemaPath);
-				
-				if(validator == null){//first access
-					//create a SchemaFactory capable of understanding WXS schemas
-					SchemaFactory factory = SchemaFactory
-							.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-					factory.setResourceResolver(new LLRPExternalResourceResolver());
-					// load a WXS schema, represented by a Schema instance
-					ClassLoader cl = getClass().getClassLoader();
-					InputStream s = new BufferedInputStream(cl
-							.getResourceAsStream(schemaPath));
-					Schema schema = factory.newSchema(new StreamSource(s));
-					// create a Validator instance, which can be used to validate an
-					// instance document
-					validator = schema.newValidator();
-					// add validator to Map of existing validators
-					validators.put(schemaPath, validator);
-				}
-				//validate the DOM tree
-				validator.validate(new StreamSource(is));
-			}
+			//validate the JDOM tree as a stream of SAX events
+			validator(schemaPath).validate(new JDOMSource(jdomDoc));
 		} catch (SAXException e) {
 
-			XMLOutputter output = new XMLOutputter();
-			output.setFormat(Format.getPrettyFormat());
-			LOGGER.warn("LTK XML message can not be validated against schema "
-					+ schemaPath + output.outputString(jdomDoc) + "because "
-					+ e.getMessage());
-			throw new InvalidLLRPMessageException(
-					"LTK XML message can not be validated against schema "
-							+ schemaPath + output.outputString(jdomDoc)
-							+ "because " + e.getMessage(),e);
+			String message = "LTK XML message can not be validated against schema "
+					+ schemaPath
+					+ LLRPXMLOutputOptions.PRETTY.outputString(jdomDoc)
+					+ "because " + e.getMessage();
+			LOGGER.warn(message);
+			throw new InvalidLLRPMessageException(message, e);
 
 		} catch (IOException e) {
 			LOGGER.warn("LLRP.xsd schema cannot be found " + schemaPath);
@@ -404,6 +742,58 @@ public abstract class LLRPMessage {
 		return true;
 	}
 
+	/**
+	 * validator of the calling thread for the schema at schemaPath.
+	 */
+	private Validator validator(String schemaPath) throws SAXException,
+			IOException {
+		Map<String, Validator> threadValidators = validators.get();
+		Validator validator = threadValidators.get(schemaPath);
+
+		if (validator == null) {
+			validator = schema(schemaPath).newValidator();
+			threadValidators.put(schemaPath, validator);
+		}
+
+		return validator;
+	}
+
+	/**
+	 * schema at schemaPath, loaded from the class path on first access.
+	 */
+	private Schema schema(String schemaPath) throws SAXException, IOException {
+		Schema schema = schemas.get(schemaPath);
+
+		if (schema != null) {
+			return schema;
+		}
+
+		// create a SchemaFactory capable of understanding WXS schemas
+		SchemaFactory factory = SchemaFactory
+				.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		factory.setResourceResolver(new LLRPExternalResourceResolver());
+		// load a WXS schema, represented by a Schema instance
+		ClassLoader cl = getClass().getClassLoader();
+		InputStream resource = cl.getResourceAsStream(schemaPath);
+
+		if (resource == null) {
+			throw new IOException("no resource " + schemaPath);
+		}
+
+		InputStream s = new BufferedInputStream(resource);
+
+		try {
+			schema = factory.newSchema(new StreamSource(s));
+		} finally {
+			s.close();
+		}
+
+		// threads loading the same schema concurrently all use the first one
+		Schema existing = schemas.putIfAbsent(schemaPath, schema);
+
+		return existing == null ? schema : existing;
+	}
+
 	/**
 	 * Return LLRP message as string in LTK XML format
 	 * 
@@ -415,11 +805,23 @@ public abstract class LLRPMessage {
 	 */
 	public String toXMLString() throws InvalidLLRPMessageException {
 
-		Document d = this.encodeXML();
-		XMLOutputter outputter = new XMLOutputter();
-		outputter.setFormat(Format.getPrettyFormat());
+		return toXMLString(LLRPXMLOutputOptions.PRETTY);
+
+	}
+
+	/**
+	 * Return LLRP message as string in LTK XML encoding, written according
+	 * to options, e.g. LLRPXMLOutputOptions.COMPACT.
+	 * 
+	 * @param options
+	 *            pretty or compact output, with or without namespaces
+	 * @return LRRP message in LTK XML encoding
+	 * @throws InvalidLLRPMessageException
+	 */
+	public String toXMLString(LLRPXMLOutputOptions options)
+			throws InvalidLLRPMessageException {
 
-		return outputter.outputString(d);
+		return options.outputString(encodeXML());
 
 	}
 
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.types;
+
+import java.util.Arrays;
+
+
+/**
+ * formatting and parsing of the hex and decimal text used for arrays in LTK
+ * XML. The arrays append to one StringBuilder and parse the text in a single
+ * pass, so both take time linear in the number of values, also for the
+ * large user memory reads in C1G2ReadOpSpecResult.
+ */
+public final class LLRPNumberFormat {
+    /** lower case hex digits by value */
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    /** value of each ASCII character as digit, -1 if it is none */
+    private static final byte[] VALUES = new byte[128];
+
+    /** digits that always fit into a long, in radix 10 and 16 */
+    private static final int MAX_DIGITS = 15;
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private LLRPNumberFormat() {
+    }
+
+    /**
+     * append the lowest digits hex digits of value, padded with zeros.
+     *
+     * @param sb to append to
+     * @param value to be formatted
+     * @param digits number of hex digits
+     *
+     * @return sb
+     */
+    public static StringBuilder appendHex(StringBuilder sb, long value,
+        int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+
+        return sb;
+    }
+
+    /**
+     * parse the values of an array in LTK XML, separated by white space.
+     *
+     * @param text values in radix 10 or 16, decimal values can have a sign
+     * @param radix 10 or 16
+     * @param min smallest allowed value
+     * @param max largest allowed value
+     *
+     * @return values, empty if text is null or holds no value
+     *
+     * @throws NumberFormatException if a value is not a number
+     * @throws IllegalArgumentException if a value is not between min and max
+     */
+    public static long[] parseArray(String text, int radix, long min, long max) {
+        if (text == null) {
+            return new long[0];
+        }
+
+        int length = text.length();
+        long[] values = new long[count(text)];
+        int n = 0;
+        int i = 0;
+
+        while (i < length) {
+            if (isSeparator(text.charAt(i))) {
+                i++;
+
+                continue;
+            }
+
+            int start = i;
+
+            while ((i < length) && !isSeparator(text.charAt(i))) {
+                i++;
+            }
+
+            long value = parse(text, start, i, radix);
+
+            if ((value < min) || (value > max)) {
+                throw new IllegalArgumentException("value " +
+                    text.substring(start, i) + " not in range");
+            }
+
+            values[n++] = value;
+        }
+
+        return values;
+    }
+
+    /**
+     * parse pairs of hex digits into bytes, the encoding of hex byte arrays
+     * in LTK XML. White space between the digits is ignored.
+     *
+     * @param text hex digits
+     *
+     * @return values between 0 and 255
+     *
+     * @throws NumberFormatException if text has a character that is not a hex
+     *         digit or an odd number of digits
+     */
+    public static int[] parseHexBytes(String text) {
+        int length = text.length();
+        int[] values = new int[length / 2];
+        int n = 0;
+        int high = -1;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (isSeparator(c)) {
+                continue;
+            }
+
+            int digit = digit(c, 16);
+
+            if (digit < 0) {
+                throw new NumberFormatException("For input string: \"" + text +
+                    "\"");
+            }
+
+            if (high < 0) {
+                high = digit;
+            } else {
+                values[n++] = (high << 4) | digit;
+                high = -1;
+            }
+        }
+
+        if (high >= 0) {
+            throw new NumberFormatException("odd number of hex digits: \"" +
+                text + "\"");
+        }
+
+        if (n == values.length) {
+            return values;
+        }
+
+        int[] result = new int[n];
+        System.arraycopy(values, 0, result, 0, n);
+
+        return result;
+    }
+
+    /**
+     * number of values in text.
+     */
+    private static int count(String text) {
+        int count = 0;
+        boolean inValue = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            boolean separator = isSeparator(text.charAt(i));
+
+            if (!separator && !inValue) {
+                count++;
+            }
+
+            inValue = !separator;
+        }
+
+        return count;
+    }
+
+    /**
+     * value of text[start, end). Anything the table can not handle, like
+     * long numbers or invalid characters, is left to Long.parseLong.
+     */
+    private static long parse(String text, int start, int end, int radix) {
+        int i = start;
+        boolean negative = false;
+
+        if ((radix == 10) && (end - i > 1)) {
+            char sign = text.charAt(i);
+
+            if ((sign == '-') || (sign == '+')) {
+                negative = sign == '-';
+                i++;
+            }
+        }
+
+        if (end - i > MAX_DIGITS) {
+            return Long.parseLong(text.substring(start, end), radix);
+        }
+
+        long value = 0;
+
+        for (; i < end; i++) {
+            int digit = digit(text.charAt(i), radix);
+
+            if (digit < 0) {
+                return Long.parseLong(text.substring(start, end), radix);
+            }
+
+            value = (value * radix) + digit;
+        }
+
+        return negative ? (-value) : value;
+    }
+
+    private static int digit(char c, int radix) {
+        if (c >= VALUES.length) {
+            return -1;
+        }
+
+        int digit = VALUES[c];
+
+        return (digit < radix) ? digit : (-1);
+    }
+
+    private static boolean isSeparator(char c) {
+        return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\r');
+    }
+}
@@ -37,7 +37,31 @@ public abstract class LLRPNumberType extends LLRPType {
 	}
 
 	/**
-	 * compare two numbers.
+	 * value of this number as java long. Types wider than 32 bit override
+	 * this, UnsignedInteger96 returns the lower 64 bits.
+	 * 
+	 * @return long
+	 */
+	public long longValue() {
+		return intValue();
+	}
+
+	/**
+	 * bits above the 64 returned by longValue. Together with longValue this
+	 * identifies the value of any number type: signed types sign extend,
+	 * unsigned types return 0 or, for UnsignedInteger96, the upper 32 bits.
+	 * 
+	 * @return long
+	 */
+	protected long upperBits() {
+		return (longValue() < 0) ? -1 : 0;
+	}
+
+	/**
+	 * compare two numbers by value. Numbers of different types are equal if
+	 * they represent the same value, enumerations are only equal to values of
+	 * the same enumeration. Any other object is compared to the string
+	 * representation of this number.
 	 * 
 	 * @param other
 	 *            to compare
@@ -45,22 +69,38 @@ public abstract class LLRPNumberType extends LLRPType {
 	 * @return boolean
 	 */
 	public boolean equals(Object other) {
-		String b = "";
+		if (this == other) {
+			return true;
+		}
+
 		if (other instanceof LLRPNumberType) {
-			b = ((LLRPNumberType) other).encodeXML("value", Namespace.getNamespace("foo"))
-					.getValue();
-		} else {
-			b = other.toString();
+			LLRPNumberType number = (LLRPNumberType) other;
+
+			// the class check comes first, instanceof on an interface is
+			// expensive when it fails and most comparisons are of the same type
+			if ((getClass() != number.getClass())
+					&& ((this instanceof LLRPEnumeration) || (number instanceof LLRPEnumeration))) {
+				return false;
+			}
+
+			return (longValue() == number.longValue())
+					&& (upperBits() == number.upperBits());
 		}
+
+		if (other == null) {
+			return false;
+		}
+
 		String a = this.encodeXML("value", Namespace.getNamespace("foo"))
 				.getValue();
 
-		return a.equalsIgnoreCase(b);
+		return a.equalsIgnoreCase(other.toString());
 	}
 
 	public int hashCode() {
-		return this.encodeXML("value", Namespace.getNamespace("foo"))
-				.getValue().hashCode();
+		long value = longValue();
+
+		return (int) (value ^ (value >>> 32)) + (31 * (int) upperBits());
 	}
 	
 	public String toString(){
@@ -15,10 +15,14 @@
  */
 package org.llrp.ltk.types;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 
 /**
@@ -55,6 +59,20 @@ public abstract class LLRPParameter {
      */
     public abstract void decodeBinary(LLRPBitList list);
 
+    /**
+     * create objects from the binary encoding at the current position of
+     * reader. The default copies the parameter into an LLRPBitList and calls
+     * decodeBinary(LLRPBitList).
+     *
+     * @param reader positioned at the start of the parameter
+     * @param length of the parameter in bits
+     * @param end bit position where the enclosing message or parameter ends
+     */
+    public void decodeBinary(LLRPBitReader reader, int length, int end) {
+        reader.checkAvailable(length, end);
+        decodeBinary(reader.readBitList(length));
+    }
+
     /**
      * create binary representation of this parameter.
      *
@@ -62,6 +80,16 @@ public abstract class LLRPParameter {
      */
     public abstract LLRPBitList encodeBinary();
 
+    /**
+     * write binary representation of this parameter into writer. The default
+     * writes the result of encodeBinary().
+     *
+     * @param writer to write into
+     */
+    public void encodeBinary(LLRPBitWriter writer) {
+        writer.write(encodeBinary());
+    }
+
     /**
      * create xml representation of this parameter.
      *
@@ -70,6 +98,21 @@ public abstract class LLRPParameter {
      */
     public abstract Content encodeXML(String name, Namespace ns);
 
+    /**
+     * write xml representation of this parameter to writer. The default
+     * writes the element returned by encodeXML(name, ns).
+     *
+     * @param name of element
+     * @param ns Namespace of elements
+     * @param writer to write to
+     *
+     * @throws XMLStreamException
+     */
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+        throws XMLStreamException {
+        XMLStreamUtil.writeContent(writer, encodeXML(name, ns));
+    }
+
     /**
      * create objects from xml.
      *
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.types;
+
+
+/**
+ * Creates a parameter of one type from its binary encoding. Generated
+ * messages and parameters keep one table of factories per choice, indexed
+ * by type number, so that decoding a choice takes one array lookup instead
+ * of comparing the type against every possible subtype.
+ */
+public abstract class LLRPParameterFactory {
+    private final int typeNum;
+    private final int length;
+
+    /**
+     * Creates a new LLRPParameterFactory object.
+     *
+     * @param typeNum type number of the parameters created
+     * @param length length in bits of a TV parameter, 0 for TLV parameters
+     */
+    protected LLRPParameterFactory(SignedShort typeNum, int length) {
+        this.typeNum = typeNum.intValue();
+        this.length = length;
+    }
+
+    /**
+     * type number of the parameters created.
+     *
+     * @return int
+     */
+    public int getTypeNum() {
+        return typeNum;
+    }
+
+    /**
+     * length in bits of a TV parameter. TLV parameters carry their length in
+     * the header, this method returns 0 for them.
+     *
+     * @return int
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * create parameter from binary encoding.
+     *
+     * @param bits binary encoded parameter
+     *
+     * @return LLRPParameter
+     */
+    public abstract LLRPParameter create(LLRPBitList bits);
+
+    /**
+     * create parameter from the binary encoding at the current position of
+     * reader.
+     *
+     * @param reader positioned at the start of the parameter
+     * @param length of the parameter in bits
+     * @param end bit position where the enclosing message or parameter ends
+     *
+     * @return LLRPParameter
+     */
+    public abstract LLRPParameter create(LLRPBitReader reader, int length,
+        int end);
+
+    /**
+     * array holding each factory at the index of its type number.
+     *
+     * @param factories to put into the table
+     *
+     * @return LLRPParameterFactory[]
+     */
+    public static LLRPParameterFactory[] table(LLRPParameterFactory[] factories) {
+        int size = 0;
+
+        for (int i = 0; i < factories.length; i++) {
+            size = Math.max(size, factories[i].typeNum + 1);
+        }
+
+        LLRPParameterFactory[] table = new LLRPParameterFactory[size];
+
+        for (int i = 0; i < factories.length; i++) {
+            if (table[factories[i].typeNum] != null) {
+                throw new IllegalArgumentException(
+                    "illegal argument: two factories for type " + factories[i].typeNum);
+            }
+
+            table[factories[i].typeNum] = factories[i];
+        }
+
+        return table;
+    }
+
+    /**
+     * factory for type.
+     *
+     * @param table created by table()
+     * @param type number as read from the parameter header, -1 if none
+     *
+     * @return LLRPParameterFactory or null if type is not in table
+     */
+    public static LLRPParameterFactory lookup(LLRPParameterFactory[] table,
+        int type) {
+        if ((type < 0) || (type >= table.length)) {
+            return null;
+        }
+
+        return table[type];
+    }
+}
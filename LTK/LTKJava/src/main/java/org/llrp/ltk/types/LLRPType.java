@@ -15,12 +15,15 @@
  */
 package org.llrp.ltk.types;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.Namespace;
-import org.jdom.output.Format;
-import org.jdom.output.XMLOutputter;
+import org.llrp.ltk.util.LLRPXMLOutputOptions;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 
 /**
@@ -51,6 +54,22 @@ public abstract class LLRPType {
      */
     public abstract Content encodeXML(String name, Namespace ns);
 
+    /**
+     * write xml representation of this value to writer, the same element
+     * encodeXML(name, ns) returns. Types override this to write their text
+     * without creating the element first.
+     *
+     * @param name element should have
+     * @param ns Namespace of element
+     * @param writer to write to
+     *
+     * @throws XMLStreamException
+     */
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+        throws XMLStreamException {
+        XMLStreamUtil.writeContent(writer, encodeXML(name, ns));
+    }
+
     /**
      * create objects from xml.
      *
@@ -63,12 +82,20 @@ public abstract class LLRPType {
      * @return String
      */ 
     public String toXMLString() {
+        return toXMLString(LLRPXMLOutputOptions.PRETTY);
+    }
+
+    /**
+     * xml representation of this type, written according to options.
+     *
+     * @param options pretty or compact output
+     * @return String
+     */
+    public String toXMLString(LLRPXMLOutputOptions options) {
         Content c = encodeXML(this.getClass().getName(), Namespace.getNamespace(""));
-        XMLOutputter outputter = new XMLOutputter();
-        outputter.setFormat(Format.getPrettyFormat());
         Document d = new Document();
         d.addContent(c);
-        return outputter.outputString(d);
+        return options.outputString(d);
     }
     
     /**
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.types;
+
+
+/**
+ * When LTK XML messages are validated against the LLRP schema in encodeXML
+ * and decodeXML. Validation finds messages that do not follow the schema but
+ * costs more than the encoding itself, applications that log every message
+ * as LTK XML usually validate a sample only or not at all.
+ *
+ * @see LLRPMessage#setDefaultValidationPolicy(LLRPValidationPolicy)
+ * @see LLRPMessage#setValidationPolicy(LLRPValidationPolicy)
+ */
+public enum LLRPValidationPolicy {
+    /** never validate. */
+    NONE,
+    /** validate every Nth message, see LLRPMessage#setValidationSampleInterval. */
+    SAMPLED,
+    /** validate every message. This is the default. */
+    ALWAYS;
+}
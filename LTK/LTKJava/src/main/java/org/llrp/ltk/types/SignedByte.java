@@ -15,12 +15,17 @@
  */
 package org.llrp.ltk.types;
 
+
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 
 /**
@@ -137,7 +142,7 @@ public class SignedByte extends LLRPNumberType {
     }
     
     public int intValue(){
-    	return toInteger().intValue();
+    	return toByte();
     }
 
     @Override
@@ -153,6 +158,12 @@ public class SignedByte extends LLRPNumberType {
         return element;
     }
 
+    @Override
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+            throws XMLStreamException {
+        XMLStreamUtil.writeElement(writer, name, ns, value.toString());
+    }
+
     @Override
     public void decodeBinary(LLRPBitList list) {
         String bitString = list.toString();
@@ -15,12 +15,17 @@
  */
 package org.llrp.ltk.types;
 
+
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 
 /**
@@ -135,6 +140,10 @@ public class SignedInteger extends LLRPNumberType {
         return new Integer(value);
     }
 
+    public int intValue() {
+        return value;
+    }
+
     @Override
     public void decodeXML(Element element) {
         value = Integer.parseInt(element.getText());
@@ -159,6 +168,12 @@ public class SignedInteger extends LLRPNumberType {
         return element;
     }
 
+    @Override
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+            throws XMLStreamException {
+        XMLStreamUtil.writeElement(writer, name, ns, Integer.toString(value));
+    }
+
     public String toString() {
         return Integer.toString(value);
     }
@@ -193,16 +193,12 @@ public class SignedIntegerArray extends LLRPType {
 
 	@Override
 	public void decodeXML(Element element) {
-		String text = element.getText();
-		if (!text.equals("")) {
-			String[] strings = text.split(" ");
-			integers = new SignedInteger[strings.length];
+		long[] values = LLRPNumberFormat.parseArray(element.getText(), 10,
+				Integer.MIN_VALUE, Integer.MAX_VALUE);
+		integers = new SignedInteger[values.length];
 
-			for (int i = 0; i < strings.length; i++) {
-				integers[i] = new SignedInteger(strings[i]);
-			}
-		} else {
-			integers = new SignedInteger[0];
+		for (int i = 0; i < values.length; i++) {
+			integers[i] = new SignedInteger((int) values[i]);
 		}
 	}
 
@@ -214,25 +210,26 @@ public class SignedIntegerArray extends LLRPType {
 	}
 
 	public String toString(int radix) {
-		String s = "";
+		StringBuilder sb = new StringBuilder(integers.length * 11);
 
 		for (SignedInteger b : integers) {
-			s += b.toString(radix);
+			sb.append(b.toString(radix));
 		}
-		return s;
+		return sb.toString();
 
 	}
 
 	public String toString() {
-		String s = "";
+		StringBuilder sb = new StringBuilder(integers.length * 12);
 
 		for (SignedInteger b : integers) {
-			s += " ";
-			s += b.toInteger();
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(b.intValue());
 		}
 
-		s = s.replaceFirst(" ", "");
-		return s;
+		return sb.toString();
 	}
 
 	/**
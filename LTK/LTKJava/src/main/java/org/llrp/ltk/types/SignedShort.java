@@ -15,12 +15,17 @@
  */
 package org.llrp.ltk.types;
 
+
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 
 /**
@@ -150,7 +155,7 @@ public class SignedShort extends LLRPNumberType {
     }
     
     public int intValue(){
-    	return toInteger().intValue();
+    	return toShort();
     }
 
     /**
@@ -185,6 +190,12 @@ public class SignedShort extends LLRPNumberType {
 
         return element;
     }
+
+    @Override
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+            throws XMLStreamException {
+        XMLStreamUtil.writeElement(writer, name, ns, value.toString());
+    }
     
     public String toString() {
         return Integer.toString(value);
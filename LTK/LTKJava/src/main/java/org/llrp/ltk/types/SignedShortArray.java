@@ -236,16 +236,12 @@ public class SignedShortArray extends LLRPType {
 
 	@Override
 	public void decodeXML(Element element) {
-		String text = element.getText();
-		if (text == null || text.equals("")){
-			shorts = new SignedShort[0];
-			return;
-		}
-		String[] strings = text.split(" ");
-		shorts = new SignedShort[strings.length];
+		long[] values = LLRPNumberFormat.parseArray(element.getText(), 10,
+				Short.MIN_VALUE, Short.MAX_VALUE);
+		shorts = new SignedShort[values.length];
 
-		for (int i = 0; i < strings.length; i++) {
-			shorts[i] = new SignedShort(strings[i]);
+		for (int i = 0; i < values.length; i++) {
+			shorts[i] = new SignedShort((int) values[i]);
 		}
 	}
 
@@ -270,27 +266,29 @@ public class SignedShortArray extends LLRPType {
 
 	@Override
 	public String toString(int radix) {
-		String s = "";
+		StringBuilder sb = new StringBuilder(shorts.length * 7);
 		for (SignedShort b : shorts) {
 			if (b != null) {
-				s += " " + b.toString(radix);
+				sb.append(' ').append(b.toString(radix));
 			}
 		}
-		return s;
+		return sb.toString();
 	}
 
 	public String toString() {
-		String s = "";
+		StringBuilder sb = new StringBuilder(shorts.length * 7);
 
 		for (SignedShort b : shorts) {
 
 			if (b != null) {
-				s += " " + b.toInteger().toString();
+				if (sb.length() > 0) {
+					sb.append(' ');
+				}
+				sb.append(b.intValue());
 			}
 		}
 
-		s = s.replaceFirst(" ", "");
-		return s;
+		return sb.toString();
 	}
 
 	/**
@@ -69,6 +69,51 @@ public abstract class TLVParameter extends LLRPParameter {
                 binary.length() - headLength));
     }
 
+    /**
+     * decode parameter from reader. Reads the header directly from the
+     * underlying buffer and hands the reader on to
+     * decodeBinarySpecific(LLRPBitReader, int).
+     *
+     * @param reader positioned at the start of the parameter
+     * @param length of the parameter in bits
+     * @param end bit position where the enclosing message or parameter ends,
+     *        the parameter must not extend beyond it
+     *
+     * @throws IllegalArgumentException
+     *             in case of any error or unexpected behaviour
+     */
+    public final void decodeBinary(LLRPBitReader reader, int length, int end) {
+        int start = reader.position();
+
+        if (length < (RESERVEDLENGTH + TYPENUMBERLENGTH + UnsignedShort.length())) {
+            throw new IllegalArgumentException("incorrect length");
+        }
+
+        reader.checkAvailable(length, end);
+        reader.skip(RESERVEDLENGTH);
+
+        int tN = reader.readBits(TYPENUMBERLENGTH);
+
+        if (tN != getTypeNum().intValue()) {
+            logging.error("incorrect type. Expected " + getTypeNum().toShort() +
+                " message indicates " + tN);
+            throw new IllegalArgumentException("incorrect type. Expected " +
+                getTypeNum().toShort() + " message indicates " + tN);
+        }
+
+        int byteLength = reader.readBits(UnsignedShort.length());
+        bitLength = new UnsignedShort(8 * byteLength);
+
+        if ((8 * byteLength) != length) {
+            logging.error("incorrect length. Expected " + length +
+                " message indicates " + (8 * byteLength));
+            throw new IllegalArgumentException("incorrect length");
+        }
+
+        decodeBinarySpecific(reader, start + length);
+        reader.position(start + length);
+    }
+
     /**
      * create binary encoding of this parameter. Returns a LLRPBitList which can
      * concatenated with binary encoding of other parameters to form a binary
@@ -94,6 +139,32 @@ public abstract class TLVParameter extends LLRPParameter {
         return result;
     }
 
+    /**
+     * write binary encoding of this parameter into writer. The length field
+     * is written as 0 and back-patched once the parameter specific part is
+     * written.
+     *
+     * @param writer to write into
+     */
+    public final void encodeBinary(LLRPBitWriter writer) {
+        int start = writer.position();
+        writer.writeZeros(RESERVEDLENGTH);
+        writer.writeBits(getTypeNum().intValue(), TYPENUMBERLENGTH);
+        writer.writeBits(0, UnsignedShort.length());
+        // call parameter specific encoding method
+        encodeBinarySpecific(writer);
+
+        int lengthBits = writer.position() - start;
+        int lengthBytes = lengthBits / 8;
+
+        if ((lengthBits % 8) > 0) {
+            lengthBytes++;
+        }
+
+        writer.patchBits(start + RESERVEDLENGTH + TYPENUMBERLENGTH,
+            lengthBytes, UnsignedShort.length());
+    }
+
     /**
      * decoding function to be implemented by each parameter
      *
@@ -102,6 +173,18 @@ public abstract class TLVParameter extends LLRPParameter {
      */
     protected abstract void decodeBinarySpecific(LLRPBitList binary);
 
+    /**
+     * decoding function for the ByteBuffer path. Generated parameters
+     * override it, the default copies the remaining bits of the parameter
+     * into an LLRPBitList.
+     *
+     * @param reader positioned after the parameter header
+     * @param end bit position where the parameter ends
+     */
+    protected void decodeBinarySpecific(LLRPBitReader reader, int end) {
+        decodeBinarySpecific(reader.readBitList(end - reader.position()));
+    }
+
     /**
      * protected method to force subclasses to implement their specific encoding
      *
@@ -109,6 +192,16 @@ public abstract class TLVParameter extends LLRPParameter {
      */
     protected abstract LLRPBitList encodeBinarySpecific();
 
+    /**
+     * encoding function for the streaming path. Generated parameters override
+     * it, the default writes the result of encodeBinarySpecific().
+     *
+     * @param writer positioned after the parameter header
+     */
+    protected void encodeBinarySpecific(LLRPBitWriter writer) {
+        writer.write(encodeBinarySpecific());
+    }
+
     /**
      * finalize encoding by setting length of parameter Must be called at very
      * end since length can not be known before message is completly encoded
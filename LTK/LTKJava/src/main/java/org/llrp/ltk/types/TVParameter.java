@@ -54,6 +54,36 @@ public abstract class TVParameter extends LLRPParameter {
                 bits.length() - PARAMETERTYPELENGTH));
     }
 
+    /**
+     * decode parameter from reader. The type is checked against the 7 bits
+     * following the leading 1 bit.
+     *
+     * @param reader positioned at the start of the parameter
+     * @param length of the parameter in bits
+     * @param end bit position where the enclosing message or parameter ends,
+     *        the parameter must not extend beyond it
+     */
+    public void decodeBinary(LLRPBitReader reader, int length, int end) {
+        int start = reader.position();
+
+        if (length < PARAMETERTYPELENGTH) {
+            throw new IllegalArgumentException("incorrect length");
+        }
+
+        reader.checkAvailable(length, end);
+        reader.skip(1);
+
+        int tN = reader.readBits(PARAMETERTYPELENGTH - 1);
+
+        if (tN != getTypeNum().intValue()) {
+            throw new IllegalArgumentException("incorrect type. Expected " +
+                getTypeNum().toShort() + " message indicates " + tN);
+        }
+
+        decodeBinarySpecific(reader, start + length);
+        reader.position(start + length);
+    }
+
     /**
      * encode parameter
      *
@@ -75,6 +105,17 @@ public abstract class TVParameter extends LLRPParameter {
         return result;
     }
 
+    /**
+     * write binary encoding of this parameter into writer.
+     *
+     * @param writer to write into
+     */
+    public void encodeBinary(LLRPBitWriter writer) {
+        // first bit must always be set to 1
+        writer.writeBits(0x80 | getTypeNum().intValue(), PARAMETERTYPELENGTH);
+        encodeBinarySpecific(writer);
+    }
+
     /**
      * function to be implemented
      *
@@ -83,10 +124,32 @@ public abstract class TVParameter extends LLRPParameter {
      */
     protected abstract void decodeBinarySpecific(LLRPBitList binary);
 
+    /**
+     * decoding function for the ByteBuffer path. Generated parameters
+     * override it, the default copies the remaining bits of the parameter
+     * into an LLRPBitList.
+     *
+     * @param reader positioned after the parameter type
+     * @param end bit position where the parameter ends
+     */
+    protected void decodeBinarySpecific(LLRPBitReader reader, int end) {
+        decodeBinarySpecific(reader.readBitList(end - reader.position()));
+    }
+
     /**
      * protected method to force subclasses to implement their specific encoding
      *
      * @return LLRPBitList
      */
     protected abstract LLRPBitList encodeBinarySpecific();
+
+    /**
+     * encoding function for the streaming path. Generated parameters override
+     * it, the default writes the result of encodeBinarySpecific().
+     *
+     * @param writer positioned after the parameter type
+     */
+    protected void encodeBinarySpecific(LLRPBitWriter writer) {
+        writer.write(encodeBinarySpecific());
+    }
 }
@@ -15,12 +15,17 @@
  */
 package org.llrp.ltk.types;
 
+
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 /**
  * unsigned 16 bit short
@@ -133,6 +138,10 @@ public class UnsignedByte extends LLRPNumberType {
 		return value;
 	}
 
+	public int intValue() {
+		return value;
+	}
+
 	@Override
 	public void decodeBinary(LLRPBitList list) {
 		value = Integer.parseInt(list.toString(), 2);
@@ -162,6 +171,12 @@ public class UnsignedByte extends LLRPNumberType {
 		return element;
 	}
 
+	@Override
+	public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+			throws XMLStreamException {
+		XMLStreamUtil.writeElement(writer, name, ns, Integer.toString(value));
+	}
+
 	public String toString(int radix) {
 		return Integer.toString(value, radix).replace("-", "");
 	}
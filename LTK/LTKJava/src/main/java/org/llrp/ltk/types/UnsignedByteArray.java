@@ -15,7 +15,6 @@
  */
 package org.llrp.ltk.types;
 
-import java.math.BigInteger;
 
 import org.jdom.Content;
 import org.jdom.Element;
@@ -220,16 +219,11 @@ public class UnsignedByteArray extends LLRPType {
      * @param element to decode
      */
 	public void decodeXML(Element element) {
-		String text = element.getText();
-		if (text == null || text.equals("")){
-			bytes = new UnsignedByte[0];
-			return;
-		}
-		String[] strings = text.split(" ");
-		bytes = new UnsignedByte[strings.length];
+		long[] values = LLRPNumberFormat.parseArray(element.getText(), 10, 0, 255);
+		bytes = new UnsignedByte[values.length];
 
-		for (int i = 0; i < strings.length; i++) {
-			bytes[i] = new UnsignedByte(strings[i]);
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = new UnsignedByte((int) values[i]);
 		}
 	}
 
@@ -248,32 +242,40 @@ public class UnsignedByteArray extends LLRPType {
 	 * @return Integer
 	 */
 	public Integer toInteger() {
-		String s = "";
+		if (bytes.length == 0) {
+			// as thrown by new BigInteger("", 16)
+			throw new NumberFormatException("Zero length BigInteger");
+		}
+		// the digits of each byte are concatenated without padding, the
+		// result is the low 32 bits of the number they form
+		int value = 0;
 		for (UnsignedByte b : bytes) {
-			s += b.toString(16);
+			value = (b.value < 16) ? (value << 4) : (value << 8);
+			value |= b.value;
 		}
-		BigInteger big = new BigInteger(s,16);
-		return big.intValue();
+		return value;
 	}
 	
 	
 	public String toString(int radix) {
-		String s = "";
+		StringBuilder sb = new StringBuilder(bytes.length * 3);
 		for (UnsignedByte b : bytes) {
-			s += b.toString(radix);
+			sb.append(b.toString(radix));
 		}
-		return s;
+		return sb.toString();
 	}
 	
 	public String toString(){
-		String s = "";
+		StringBuilder sb = new StringBuilder(bytes.length * 4);
 
 		for (UnsignedByte b : bytes) {
-			s += b.toInteger().toString();
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(b.value);
 		}
 
-		s = s.replaceFirst(" ", "");
-		return s;
+		return sb.toString();
 	}
 	
 	/**
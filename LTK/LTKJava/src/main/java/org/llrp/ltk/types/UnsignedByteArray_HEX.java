@@ -1,7 +1,6 @@
 package org.llrp.ltk.types;
 
 import java.math.BigInteger;
-import java.util.LinkedList;
 
 import org.jdom.Content;
 import org.jdom.Element;
@@ -105,37 +104,23 @@ public class UnsignedByteArray_HEX extends UnsignedByteArray {
 			bytes = new UnsignedByte[0];
 			return;
 		}
-		LinkedList<UnsignedByte> tempList = new LinkedList<UnsignedByte>();
+		int[] values = LLRPNumberFormat.parseHexBytes(byteString);
+		bytes = new UnsignedByte[values.length];
 
-		int length = byteString.length();
-
-		for (int i = 0; i < length; i = i + 2) {
-			String temp = byteString.substring(i, i+2);
-			Integer ti = Integer.decode("0x" + temp);
-			tempList.add(new UnsignedByte(ti));
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = new UnsignedByte(values[i]);
 		}
-		UnsignedByte[] bs = new UnsignedByte[tempList.size()];
-		bytes = tempList.toArray(bs);
 	}
 
 	public String toString() {
-		String s = "";
-		int i = 0;
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
 		for (UnsignedByte b : bytes) {
 			// U8v does not have spaces - this is a special case
 			if (b != null) {
-				String t = Integer.toHexString(b.value);
-				if (t.length()==1){
-					t = "0"+t;
-				}
-				s += t;
-				
-				i++;
-
+				LLRPNumberFormat.appendHex(sb, b.value, 2);
 			}
 		}
 
-		s = s.replaceFirst(" ", "");
-		return s;
+		return sb.toString();
 	}
 }
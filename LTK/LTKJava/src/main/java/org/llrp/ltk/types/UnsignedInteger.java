@@ -15,6 +15,7 @@
  */
 package org.llrp.ltk.types;
 
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
@@ -22,6 +23,10 @@ import org.jdom.Text;
 
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.llrp.ltk.util.XMLStreamUtil;
+
 
 /**
  * Unsigned 32 bit Integer
@@ -32,7 +37,8 @@ public class UnsignedInteger extends LLRPNumberType {
     // value interpreted as unsigned Integer
     // leading zero not sign but number
     private static final Integer LENGTH = 32;
-    protected BigInteger value;
+    // between 0 and 2^32-1
+    protected long value;
 
     /**
      * Creates a new UnsignedInteger object from Java Integer - interpreting signed bit as value
@@ -40,7 +46,7 @@ public class UnsignedInteger extends LLRPNumberType {
      * @param value to set
      */
     public UnsignedInteger(Integer value) {
-    	this.value = new BigInteger(Integer.toBinaryString(value.intValue()),2);
+    	this.value = value.intValue() & 0xFFFFFFFFL;
         signed = false;
     }
     
@@ -62,7 +68,7 @@ public class UnsignedInteger extends LLRPNumberType {
      * @param value to set
      */
     public UnsignedInteger(long value){
-    	this.value = BigInteger.valueOf(value);
+    	this.value = value;
         signed = false;
         if (!inRange(value)){
 			throw new IllegalArgumentException("Illegal Argument: value "+value+" not in range allowed for UnsignedInteger");
@@ -75,10 +81,10 @@ public class UnsignedInteger extends LLRPNumberType {
      * @param valueString value as string
      */
     public UnsignedInteger(String valueString) {
-        value = new BigInteger(valueString);
         if (!inRange(valueString)){
 			throw new IllegalArgumentException("value "+valueString+" not in range");
 		}
+        value = Long.parseLong(valueString);
     }
 
     /**
@@ -92,7 +98,7 @@ public class UnsignedInteger extends LLRPNumberType {
      * Creates a new UnsignedInteger object.
      */
     public UnsignedInteger() {
-        value = new BigInteger("0");
+        value = 0;
         signed = false;
     }
 
@@ -121,7 +127,13 @@ public class UnsignedInteger extends LLRPNumberType {
      * @param bitList to be decoded
      */
     public void decodeBinary(LLRPBitList bitList) {
-        value = new BigInteger(bitList.toString(), 2);
+        long v = 0;
+
+        for (int i = 0; i < bitList.length(); i++) {
+            v = (v << 1) | (bitList.get(i) ? 1 : 0);
+        }
+
+        value = v;
     }
 
     /**
@@ -140,11 +152,11 @@ public class UnsignedInteger extends LLRPNumberType {
      * @return Integer
      */
     public Integer toInteger() {
-        return value.intValue();
+        return (int) value;
     }
 
     public int intValue(){
-    	return value.intValue();
+    	return (int) value;
     }
     /**
      * Unsigned Integer wrapped Integero java long
@@ -152,39 +164,51 @@ public class UnsignedInteger extends LLRPNumberType {
      * @return Long
      */
     public Long toLong() {
-        return value.longValue();
+        return value;
+    }
+
+    /**
+     * Unsigned Integer as java long, without boxing
+     *
+     * @return long between 0 and 2^32-1
+     */
+    public long longValue() {
+        return value;
     }
 
     @Override
     public void decodeXML(Element element) {
-        value = new BigInteger(element.getText());
+        value = Long.parseLong(element.getText());
     }
 
     @Override
     public LLRPBitList encodeBinary() {
-        LLRPBitList result = new LLRPBitList(value.toString(2));
-
-        if (result.length() < LENGTH) {
-            result.pad(LENGTH - result.length());
-        }
-
-        return result.subList(result.length() - LENGTH, LENGTH);
+        return new LLRPBitList(new byte[] {
+                (byte) (value >>> 24), (byte) (value >>> 16),
+                (byte) (value >>> 8), (byte) value
+            });
     }
 
     @Override
     public Content encodeXML(String name, Namespace ns) {
         Element element = new Element(name, ns);
-        element.setContent(new Text(value.toString()));
+        element.setContent(new Text(Long.toString(value)));
 
         return element;
     }
 
+    @Override
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+            throws XMLStreamException {
+        XMLStreamUtil.writeElement(writer, name, ns, Long.toString(value));
+    }
+
     public String toString(int radix) {
-        return value.toString(radix);
+        return Long.toString(value, radix);
     }
     
     public String toString(){
-    	return value.toString();
+    	return Long.toString(value);
     }
     
     @Override
@@ -24,13 +24,18 @@ import java.math.BigInteger;
 
 
 /**
- * Unsigned 96bit Integer
+ * Unsigned 96bit Integer. The value is kept in two longs, the upper 32 bits
+ * in high and the lower 64 bits in low.
  *
  * @author Basil Gasser - ETH Zurich
  */
 public class UnsignedInteger96 extends LLRPNumberType {
     protected static final int LENGTH = 96;
-    protected BigInteger value;
+    private static final long HIGH_MASK = 0xFFFFFFFFL;
+    // upper 32 bits, always between 0 and 2^32-1
+    protected long high;
+    // lower 64 bits
+    protected long low;
 
     /**
          * Creates a new Integer96 object.
@@ -38,13 +43,28 @@ public class UnsignedInteger96 extends LLRPNumberType {
          * @param value to set
          */
     public UnsignedInteger96(BigInteger value) {
-        this.value = value;
+        setValue(value);
         signed = true;
     }
 
     public UnsignedInteger96(long value){
-    	this(BigInteger.valueOf(value));
+    	this.high = (value < 0) ? HIGH_MASK : 0;
+    	this.low = value;
+        signed = true;
+    }
+
+    /**
+     * Creates a new Integer96 object from its upper 32 and lower 64 bits.
+     *
+     * @param high upper 32 bits
+     * @param low lower 64 bits
+     */
+    public UnsignedInteger96(int high, long low) {
+        this.high = high & HIGH_MASK;
+        this.low = low;
+        signed = true;
     }
+
     /**
          * Creates a new Integer96 object.
          */
@@ -89,19 +109,21 @@ public class UnsignedInteger96 extends LLRPNumberType {
      * @param bitList to be decoded
      */
     public void decodeBinary(LLRPBitList bitList) {
-        String bitString = bitList.toString();
-        value = new BigInteger(bitString,2);
+        long h = 0;
+        long l = 0;
+
+        for (int i = 0; i < bitList.length(); i++) {
+            h = (h << 1) | (l >>> 63);
+            l = (l << 1) | (bitList.get(i) ? 1 : 0);
+        }
+
+        high = h & HIGH_MASK;
+        low = l;
     }
 
     @Override
     public LLRPBitList encodeBinary() {
-        LLRPBitList result = new LLRPBitList(value.toString(2));
-
-        if (result.length() < LENGTH) {
-            result.pad(LENGTH - result.length());
-        }
-
-        return result.subList(result.length() - LENGTH, LENGTH);
+        return new LLRPBitList(toByteArray());
     }
 
     /**
@@ -119,7 +141,61 @@ public class UnsignedInteger96 extends LLRPNumberType {
      * @return Integer
      */
     public Integer toInteger() {
-        return value.intValue();
+        return (int) low;
+    }
+
+    public int intValue() {
+        return (int) low;
+    }
+
+    /**
+     * lower 64 bits as java long.
+     *
+     * @return long
+     */
+    public long longValue() {
+        return low;
+    }
+
+    /**
+     * upper 32 bits as java int.
+     *
+     * @return int
+     */
+    public int highValue() {
+        return (int) high;
+    }
+
+    protected long upperBits() {
+        return high;
+    }
+
+    /**
+     * this Integer as BigInteger.
+     *
+     * @return BigInteger
+     */
+    public BigInteger toBigInteger() {
+        return new BigInteger(1, toByteArray());
+    }
+
+    /**
+     * the 96 bits as 12 bytes, most significant byte first.
+     *
+     * @return byte[]
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[12];
+
+        for (int i = 0; i < 4; i++) {
+            bytes[i] = (byte) (high >>> (24 - (8 * i)));
+        }
+
+        for (int i = 0; i < 8; i++) {
+            bytes[4 + i] = (byte) (low >>> (56 - (8 * i)));
+        }
+
+        return bytes;
     }
 
     /**
@@ -128,28 +204,59 @@ public class UnsignedInteger96 extends LLRPNumberType {
      * @param value to set
      */
     protected void setBits(Number value) {
-        this.value = new BigInteger(value.toString());
+        setValue(new BigInteger(value.toString()));
+    }
+
+    /**
+     * set value, bits above the 96th are dropped.
+     *
+     * @param value to set
+     */
+    protected void setValue(BigInteger value) {
+        this.high = value.shiftRight(64).longValue() & HIGH_MASK;
+        this.low = value.longValue();
     }
 
     @Override
     public void decodeXML(Element element) {
-        this.value = new BigInteger(element.getText());
+        setValue(new BigInteger(element.getText()));
     }
 
     @Override
     public Content encodeXML(String name, Namespace ns) {
         Element element = new Element(name, ns);
-        element.setContent(new Text(value.toString()));
+        element.setContent(new Text(toString(10)));
 
         return element;
     }
 
     public String toString(int radix) {
-        return value.toString(radix);
+        if (radix == 16) {
+            // hex digits map directly to the two words
+            if (high == 0) {
+                return Long.toHexString(low);
+            }
+
+            String lowDigits = Long.toHexString(low);
+            StringBuffer sb = new StringBuffer(24);
+            sb.append(Long.toHexString(high));
+
+            for (int i = lowDigits.length(); i < 16; i++) {
+                sb.append('0');
+            }
+
+            return sb.append(lowDigits).toString();
+        }
+
+        if ((high == 0) && (low >= 0)) {
+            return Long.toString(low, radix);
+        }
+
+        return toBigInteger().toString(radix);
     }
     
     public String toString(){
-    	return value.toString();
+    	return toString(10);
     }
     
     @Override
@@ -160,10 +267,9 @@ public class UnsignedInteger96 extends LLRPNumberType {
     
     @Override
 	public boolean inRange(String value) {
-    	// no upper check needed
     	BigInteger v = new BigInteger(value);
-		boolean bigger = (v.compareTo(new BigInteger("2").pow(96)) == 1);
-		return (!bigger && Integer.parseInt(value) >= 0);
+		boolean bigger = (v.compareTo(new BigInteger("2").pow(96)) >= 0);
+		return (!bigger && v.signum() >= 0);
 	}
     
     
@@ -186,16 +186,12 @@ public class UnsignedIntegerArray extends LLRPType {
 
 	@Override
 	public void decodeXML(Element element) {
-		String text = element.getText();
-		if (!text.equals("")){
-		String[] strings = text.split(" ");
-		integers = new UnsignedInteger[strings.length];
+		long[] values = LLRPNumberFormat.parseArray(element.getText(), 10, 0,
+				0xFFFFFFFFL);
+		integers = new UnsignedInteger[values.length];
 
-		for (int i = 0; i < strings.length; i++) {
-			integers[i] = new UnsignedInteger(strings[i]);
-		}
-		} else {
-			integers = new UnsignedInteger[0];
+		for (int i = 0; i < values.length; i++) {
+			integers[i] = new UnsignedInteger(values[i]);
 		}
 	}
 
@@ -207,25 +203,26 @@ public class UnsignedIntegerArray extends LLRPType {
 	}
 
 	public String toString(int radix) {
-		String s = "";
+		StringBuilder sb = new StringBuilder(integers.length * 10);
 
 		for (UnsignedInteger b : integers) {
-			s += b.toString(radix);
+			sb.append(b.toString(radix));
 		}
-		return s;
+		return sb.toString();
 
 	}
 	
 	public String toString(){
-		String s = "";
+		StringBuilder sb = new StringBuilder(integers.length * 11);
 
 		for (UnsignedInteger b : integers) {
-			s += " ";
-			s += b.toLong();
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(b.toLong().longValue());
 		}
 
-		s = s.replaceFirst(" ", "");
-		return s;
+		return sb.toString();
 	}
 	
 	/**
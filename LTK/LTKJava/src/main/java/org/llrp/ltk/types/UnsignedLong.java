@@ -15,25 +15,32 @@
  */
 package org.llrp.ltk.types;
 
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 
 /**
- * Unsigned Long 
+ * Unsigned Long. The 64 bits are kept in a java long, values of 2^63 and
+ * above are therefore stored as negative numbers.
  *
  * @author Basil Gasser - ETH Zurich
  */
 public class UnsignedLong extends LLRPNumberType {
     protected static final int LENGTH = 64;
-    protected BigInteger value;
+    private static final BigInteger TWO_64 = BigInteger.ONE.shiftLeft(64);
+    protected long value;
 
     public UnsignedLong() {
-        this.value = BigInteger.ZERO;
+        this.value = 0;
     }
 
     /**
@@ -42,7 +49,16 @@ public class UnsignedLong extends LLRPNumberType {
          * @param value to set
          */
     public UnsignedLong(Long value) {
-        this.value = new BigInteger(value.toString());
+        this(value.longValue());
+    }
+
+    /**
+         * Creates a new UnsignedLong object.
+         *
+         * @param value to set, negative values are interpreted as unsigned
+         */
+    public UnsignedLong(long value) {
+        this.value = value;
         signed = false;
     }
 
@@ -60,7 +76,7 @@ public class UnsignedLong extends LLRPNumberType {
      *
      */
     public UnsignedLong(String valueString, int radix) {
-        this(new BigInteger(valueString, radix).longValue());
+        this(parseUnsigned(valueString, radix));
     }
 
 
@@ -89,7 +105,13 @@ public class UnsignedLong extends LLRPNumberType {
      * @param bitList to be decoded
      */
     public void decodeBinary(LLRPBitList bitList) {
-        value = new BigInteger(bitList.toString(), 2);
+        long v = 0;
+
+        for (int i = 0; i < bitList.length(); i++) {
+            v = (v << 1) | (bitList.get(i) ? 1 : 0);
+        }
+
+        value = v;
     }
 
     /**
@@ -100,12 +122,7 @@ public class UnsignedLong extends LLRPNumberType {
      * @return boolean
      */
     public boolean equals(LLRPNumberType other) {
-        if (other instanceof UnsignedLong) {
-            return toBigInteger().equals(((UnsignedLong) other).toBigInteger());
-        } else {
-            return toBigInteger()
-                       .equals(new BigInteger(other.encodeBinary().toString(), 2));
-        }
+        return equals((Object) other);
     }
 
     /**
@@ -123,7 +140,9 @@ public class UnsignedLong extends LLRPNumberType {
      * @return BigInteger
      */
     public BigInteger toBigInteger() {
-        return value;
+        BigInteger b = BigInteger.valueOf(value);
+
+        return (value < 0) ? b.add(TWO_64) : b;
     }
 
     /**
@@ -132,7 +151,11 @@ public class UnsignedLong extends LLRPNumberType {
      * @return Integer
      */
     public Integer toInteger() {
-        return new Long(toLong()).intValue();
+        return (int) value;
+    }
+
+    public int intValue() {
+        return (int) value;
     }
 
     /**
@@ -142,39 +165,96 @@ public class UnsignedLong extends LLRPNumberType {
      * @return long
      */
     public long toLong() {
-        return value.longValue();
+        return value;
+    }
+
+    /**
+     * the 64 bits as java long, same as toLong.
+     *
+     * @return long
+     */
+    public long longValue() {
+        return value;
+    }
+
+    /**
+     * values of 2^63 and above are negative longs but not negative numbers.
+     */
+    protected long upperBits() {
+        return 0;
     }
 
     @Override
     public void decodeXML(Element element) {
-        value = new BigInteger(element.getText());
+        value = parseUnsigned(element.getText(), 10);
     }
 
     @Override
     public LLRPBitList encodeBinary() {
-        LLRPBitList result = new LLRPBitList(value.toString(2));
+        byte[] bytes = new byte[8];
 
-        if (result.length() < LENGTH) {
-            result.pad(LENGTH - result.length());
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (value >>> (56 - (8 * i)));
         }
 
-        return result.subList(result.length() - LENGTH, LENGTH);
+        return new LLRPBitList(bytes);
     }
 
     @Override
     public Content encodeXML(String name, Namespace ns) {
         Element element = new Element(name, ns);
-        element.setContent(new Text(value.toString()));
+        element.setContent(new Text(toString(10)));
 
         return element;
     }
 
-    public int hashCode() {
-        return value.hashCode();
+    @Override
+    public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+            throws XMLStreamException {
+        XMLStreamUtil.writeElement(writer, name, ns, toString(10));
     }
-    
+
     public String toString(int radix){
-    	return value.toString(radix);
+    	if (value >= 0) {
+    		return Long.toString(value, radix);
+    	}
+
+    	return toBigInteger().toString(radix);
+    }
+
+    /**
+     * parse an unsigned number, BigInteger is only used for values that do
+     * not fit into a signed long.
+     *
+     * @param valueString number
+     * @param radix of valueString
+     *
+     * @return long, values of 2^63 and above are negative
+     *
+     * @throws NumberFormatException if valueString is no number, negative or
+     *         not less than 2^64
+     */
+    protected static long parseUnsigned(String valueString, int radix) {
+        BigInteger big;
+
+        try {
+            long value = Long.parseLong(valueString, radix);
+
+            if (value >= 0) {
+                return value;
+            }
+
+            big = BigInteger.valueOf(value);
+        } catch (NumberFormatException e) {
+            big = new BigInteger(valueString, radix);
+        }
+
+        if ((big.signum() < 0) || (big.compareTo(TWO_64) >= 0)) {
+            throw new NumberFormatException("value " + valueString +
+                " not in range allowed for UnsignedLong");
+        }
+
+        return big.longValue();
     }
     
     @Override
@@ -1,7 +1,6 @@
 package org.llrp.ltk.types;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
@@ -10,11 +9,14 @@ import java.util.GregorianCalendar;
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 public class UnsignedLong_DATETIME extends UnsignedLong {
 	/**
@@ -27,7 +29,7 @@ public class UnsignedLong_DATETIME extends UnsignedLong {
 	}
 
 	public UnsignedLong_DATETIME() {
-		this.value = BigInteger.ZERO;
+		this.value = 0;
 	}
 	
 
@@ -81,9 +83,9 @@ public class UnsignedLong_DATETIME extends UnsignedLong {
 			df = DatatypeFactory.newInstance();
 			XMLGregorianCalendar cal = df.newXMLGregorianCalendar(element.getText());
 			
-			// convert to BigInteger format with value in microseconds 
+			// convert to value in microseconds 
 			// the last three digits ("microseconds") are "000" at this stage
-			value = BigInteger.valueOf(cal.toGregorianCalendar().getTimeInMillis()*1000);
+			value = cal.toGregorianCalendar().getTimeInMillis()*1000;
 			
 			// compute microseconds value by subtracting milliseconds from return value
 			// of XMLGregorianCalendar.getFractionalSecond()
@@ -91,7 +93,7 @@ public class UnsignedLong_DATETIME extends UnsignedLong {
 			BigDecimal microsec = (cal.getFractionalSecond().setScale(6,BigDecimal.ROUND_DOWN)).subtract(millisec);;
 			
 			// add microseconds 
-			value = value.add(microsec.movePointRight(6).toBigInteger());
+			value += microsec.movePointRight(6).longValue();
 			
 		} catch (DatatypeConfigurationException e) {
 			throw new IllegalArgumentException(e.getMessage());
@@ -102,11 +104,28 @@ public class UnsignedLong_DATETIME extends UnsignedLong {
 	@Override
 	public Content encodeXML(String name, Namespace ns) {
 		
+		Element element = new Element(name, ns);
+		element.setContent(new Text(toXMLDateTime()));
+
+		return element;
+	}
+
+	@Override
+	public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+			throws XMLStreamException {
+		XMLStreamUtil.writeElement(writer, name, ns, toXMLDateTime());
+	}
+
+	/**
+	 * xsd:dateTime with microseconds, the text of the xml encoding.
+	 */
+	private String toXMLDateTime() {
+		
 		GregorianCalendar cal = new GregorianCalendar();
 		
 		// initialize calendar after removing the last 
 		// three digits that represent microseconds 
-		final long milliseconds = value.divide(new BigInteger("1000")).longValue();
+		final long milliseconds = value / 1000;
 		cal.setTimeInMillis(milliseconds);
 		
 		StringBuffer sb = new StringBuffer();
@@ -121,11 +140,11 @@ public class UnsignedLong_DATETIME extends UnsignedLong {
 		}
 		
 		int indexOfT = sb.indexOf("T");
-		int l = value.toString().length();
-		String microseconds = value.toString().substring(l-3, l);
-		sb.insert(indexOfT+13, microseconds);
-		
-		Element element = new Element(name, ns);
+		// last three digits of the value, always three characters
+		int microseconds = (int) (value % 1000);
+		sb.insert(indexOfT+13, (char) ('0' + (microseconds / 100)));
+		sb.insert(indexOfT+14, (char) ('0' + ((microseconds / 10) % 10)));
+		sb.insert(indexOfT+15, (char) ('0' + (microseconds % 10)));
 		
 		// to convert to xsd:dateTime it is necessary to insert a ":" 
 		// in the timezone generated using the "Z" in the 
@@ -134,13 +153,11 @@ public class UnsignedLong_DATETIME extends UnsignedLong {
 		//sb.append(dateFormat.format(date));
 		//sb.insert(sb.length()-2, ":");
 		
-		element.setContent(new Text(sb.toString()));
-
-		return element;
+		return sb.toString();
 	}
 	
 	
 	public String toString(){
-		return encodeXML("foo", Namespace.getNamespace("foo")).getValue();
+		return toXMLDateTime();
 	}
 }
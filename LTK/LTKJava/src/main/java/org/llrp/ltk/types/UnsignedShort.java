@@ -15,12 +15,17 @@
  */
 package org.llrp.ltk.types;
 
+
 import java.math.BigInteger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.jdom.Content;
 import org.jdom.Element;
 import org.jdom.Namespace;
 import org.jdom.Text;
+import org.llrp.ltk.util.XMLStreamUtil;
 
 /**
  * unsigned 16bit short
@@ -182,6 +187,12 @@ public class UnsignedShort extends LLRPNumberType {
 		return element;
 	}
 
+	@Override
+	public void encodeXML(String name, Namespace ns, XMLStreamWriter writer)
+			throws XMLStreamException {
+		XMLStreamUtil.writeElement(writer, name, ns, value.toString());
+	}
+
 	public String toString(int radix) {
 		return Integer.toString(value & 0xFFFF, radix);
 	}
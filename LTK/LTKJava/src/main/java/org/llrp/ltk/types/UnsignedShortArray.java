@@ -236,16 +236,11 @@ public class UnsignedShortArray extends LLRPType {
 
 	@Override
 	public void decodeXML(Element element) {
-		String text = element.getText();
-		if (text == null || text.equals("")){
-			shorts = new UnsignedShort[0];
-			return;
-		}
-		String[] strings = text.split(" ");
-		shorts = new UnsignedShort[strings.length];
+		long[] values = LLRPNumberFormat.parseArray(element.getText(), 10, 0, 0xFFFF);
+		shorts = new UnsignedShort[values.length];
 
-		for (int i = 0; i < strings.length; i++) {
-			shorts[i] = new UnsignedShort(strings[i]);
+		for (int i = 0; i < values.length; i++) {
+			shorts[i] = new UnsignedShort((int) values[i]);
 		}
 	}
 
@@ -270,27 +265,29 @@ public class UnsignedShortArray extends LLRPType {
 
 	@Override
 	public String toString(int radix) {
-		String s = "";
+		StringBuilder sb = new StringBuilder(shorts.length * 6);
 		for (UnsignedShort b : shorts) {
 			if (b != null) {
-				s += " " + b.toString(radix);
+				sb.append(' ').append(b.toString(radix));
 			}
 		}
-		return s;
+		return sb.toString();
 	}
 
 	public String toString() {
-		String s = "";
+		StringBuilder sb = new StringBuilder(shorts.length * 6);
 
 		for (UnsignedShort b : shorts) {
 
 			if (b != null) {
-				s += " " + b.toInteger().toString();
+				if (sb.length() > 0) {
+					sb.append(' ');
+				}
+				sb.append(b.intValue());
 			}
 		}
 
-		s = s.replaceFirst(" ", "");
-		return s;
+		return sb.toString();
 	}
 
 	/**
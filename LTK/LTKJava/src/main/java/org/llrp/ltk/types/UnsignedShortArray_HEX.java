@@ -70,42 +70,25 @@ public class UnsignedShortArray_HEX extends UnsignedShortArray {
 
 	@Override
 	public void decodeXML(Element element) {
-		String text = element.getText();
-		if (!text.equals("")) {
-			String[] strings = text.split(" ");
-			shorts = new UnsignedShort[strings.length];
+		long[] values = LLRPNumberFormat.parseArray(element.getText(), 16, 0, 0xFFFF);
+		shorts = new UnsignedShort[values.length];
 
-			for (int i = 0; i < strings.length; i++) {
-				if (!strings[i].equals("")) {
-					shorts[i] = new UnsignedShort(Integer.parseInt(strings[i],
-							16));
-				}
-			}
-		} else {
-			shorts = new UnsignedShort[0];
+		for (int i = 0; i < values.length; i++) {
+			shorts[i] = new UnsignedShort((int) values[i]);
 		}
 	}
 
 	public String toString() {
-		StringBuffer sb = new StringBuffer();
+		// four hex digits and a space per short
+		StringBuilder sb = new StringBuilder(shorts.length * 5);
 		for (UnsignedShort b : shorts) {
 			if (b != null) {
-				sb.append(" ");
-				String s = b.toString(16);
-				int check = s.length()%4;
-				StringBuffer padding = new StringBuffer();
-				if (check!=0){
-					for (int i=0;i<4-check;i++){
-						padding.append("0");
-					}
+				if (sb.length() > 0) {
+					sb.append(' ');
 				}
-				sb.append(padding.append(s));
+				LLRPNumberFormat.appendHex(sb, b.intValue(), 4);
 			}
 		}
-		// remove initial " " in the string
-		if (sb.length() > 0 && sb.toString().startsWith(" ")) {
-			sb.deleteCharAt(0);
-		}
 		
 		return sb.toString();
 	}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+
+
+/**
+ * converts all LLRP binary messages in a directory to LTK XML or all LTK XML
+ * messages to LLRP binary, one file per task on an ExecutorService.
+ * <p>
+ * Files are read in one piece and transcoded with LLRPTranscoder, which
+ * walks the binary frame or the XML events directly, so neither message
+ * objects nor JDOM trees are built and the messages are not validated
+ * against the LTK schema. A file that can not be converted is logged and
+ * does not stop the others.
+ */
+public class LLRPBatchConverter {
+    private static final Logger LOGGER = Logger.getLogger(LLRPBatchConverter.class);
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private final ExecutorService executor;
+
+    /**
+     * @param executor runs the conversion of each file. It is not shut down
+     *        by the converter.
+     */
+    public LLRPBatchConverter(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+
+        this.executor = executor;
+    }
+
+    /**
+     * convert all .bin files (xml false) or all .xml files (xml true) in
+     * dir. Returns once all files are done.
+     *
+     * @param dir directory with the messages
+     * @param targetDir directory for the converted messages, dir if null
+     * @param xml true if the messages in dir are LTK XML
+     *
+     * @return number of files converted
+     *
+     * @throws InterruptedException if interrupted while waiting for the
+     *         conversions
+     */
+    public int convertDirectory(File dir, File targetDir, final boolean xml)
+        throws InterruptedException {
+        final File target = (targetDir == null) ? dir : targetDir;
+        final String extension = xml ? ".xml" : ".bin";
+        File[] files = dir.listFiles(new FilenameFilter() {
+                    public boolean accept(File parent, String name) {
+                        return name.endsWith(extension);
+                    }
+                });
+
+        if (files == null) {
+            LOGGER.warn("can not list directory " + dir);
+
+            return 0;
+        }
+
+        List<Future<File>> futures = new ArrayList<Future<File>>(files.length);
+
+        for (final File file : files) {
+            futures.add(executor.submit(new Callable<File>() {
+                        public File call() throws Exception {
+                            return xml ? convertXMLToBinary(file, target)
+                                       : convertBinaryToXML(file, target);
+                        }
+                    }));
+        }
+
+        int converted = 0;
+
+        for (int i = 0; i < files.length; i++) {
+            try {
+                File result = futures.get(i).get();
+                converted++;
+                LOGGER.info("Successfully converted to " + result.getName());
+            } catch (ExecutionException e) {
+                LOGGER.warn("could not convert " + files[i].getName() + ": " +
+                    e.getCause().getMessage());
+            }
+        }
+
+        return converted;
+    }
+
+    /**
+     * convert a LLRP binary message to a LTK XML file of the same name with
+     * extension .xml in targetDir.
+     *
+     * @param file binary message
+     * @param targetDir directory to write to
+     *
+     * @return file written
+     *
+     * @throws IOException
+     * @throws InvalidLLRPMessageException
+     */
+    public static File convertBinaryToXML(File file, File targetDir)
+        throws IOException, InvalidLLRPMessageException {
+        ByteBuffer frame = ByteBuffer.wrap(Util.loadBinaryFile(file));
+        File result = new File(targetDir, rename(file, ".xml"));
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(
+                    result), BUFFER_SIZE);
+
+        try {
+            LLRPTranscoder.toXML(frame, out);
+        } finally {
+            out.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * convert a LTK XML message to a LLRP binary file of the same name with
+     * extension .bin in targetDir.
+     *
+     * @param file LTK XML message
+     * @param targetDir directory to write to
+     *
+     * @return file written
+     *
+     * @throws IOException
+     * @throws InvalidLLRPMessageException
+     */
+    public static File convertXMLToBinary(File file, File targetDir)
+        throws IOException, InvalidLLRPMessageException {
+        byte[] binary = LLRPTranscoder.toBinary(Util.loadBinaryFile(file));
+        File result = new File(targetDir, rename(file, ".bin"));
+        OutputStream out = new FileOutputStream(result);
+
+        try {
+            out.write(binary);
+        } finally {
+            out.close();
+        }
+
+        return result;
+    }
+
+    private static String rename(File file, String extension) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+
+        return ((dot < 0) ? name : name.substring(0, dot)) + extension;
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.types.LLRPMessage;
+
+
+/**
+ * LLRPCaptureFile gives access to the messages of a binary capture, a file
+ * holding any number of LLRP frames one after the other as they were sent
+ * over the wire. The file is memory mapped and the offset of each frame is
+ * indexed from the length in its 10 byte header when the file is opened.
+ * Messages are only decoded when they are asked for, by index or in parallel
+ * with decode.
+ * <p>
+ * Files larger than 2 GB are mapped in several segments, each starting at a
+ * frame. A frame cut off at the end of the file, as left by an interrupted
+ * capture, is ignored with a warning.
+ * <p>
+ * Instances can be used by any number of threads.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * LLRPCaptureFile capture = new LLRPCaptureFile(new File(&quot;dx101_a.bin&quot;));
+ * for (int i = 0; i &lt; capture.size(); i++) {
+ *     LLRPMessage message = capture.getMessage(i);
+ *     ...
+ * }
+ * </pre>
+ */
+public class LLRPCaptureFile {
+    /** length of the header of each frame in bytes */
+    public static final int HEADER_LENGTH = 10;
+
+    /** offset of the message length in the header */
+    private static final int LENGTH_OFFSET = 2;
+
+    /** frames decoded by one task of decode */
+    private static final int FRAMES_PER_TASK = 256;
+    private static final Logger LOGGER = Logger.getLogger(LLRPCaptureFile.class);
+    private final File file;
+    private final long maxSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+    private final List<Long> segmentStarts = new ArrayList<Long>();
+    private long[] offsets = new long[1024];
+    private int size;
+
+    /**
+     * map and index file.
+     *
+     * @param file binary capture
+     *
+     * @throws IOException if file can not be read or has a frame with a
+     *         length of less than 10 bytes
+     */
+    public LLRPCaptureFile(File file) throws IOException {
+        this(file, Integer.MAX_VALUE);
+    }
+
+    /**
+     * map and index file in segments of at most maxSegment bytes. A segment
+     * is larger if a single frame does not fit.
+     */
+    LLRPCaptureFile(File file, long maxSegment) throws IOException {
+        this.file = file;
+        this.maxSegment = maxSegment;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try {
+            index(raf.getChannel());
+        } finally {
+            // the mapping stays valid after the channel is closed
+            raf.close();
+        }
+    }
+
+    private void index(FileChannel channel) throws IOException {
+        long fileLength = channel.size();
+        long position = 0;
+        MappedByteBuffer segment = null;
+        long segmentStart = 0;
+
+        while (fileLength - position >= HEADER_LENGTH) {
+            if ((segment == null) ||
+                    (position + HEADER_LENGTH > segmentStart +
+                    segment.capacity())) {
+                segmentStart = position;
+                segment = map(channel, position,
+                        Math.min(maxSegment, fileLength - position));
+            }
+
+            long length = segment.getInt((int) (position - segmentStart +
+                    LENGTH_OFFSET)) & 0xFFFFFFFFL;
+
+            if (length < HEADER_LENGTH) {
+                throw new IOException("invalid frame length " + length +
+                    " at offset " + position + " of " + file);
+            }
+
+            if (position + length > fileLength) {
+                LOGGER.warn("ignoring frame of length " + length +
+                    " cut off at offset " + position + " of " + file);
+
+                return;
+            }
+
+            if (position + length > segmentStart + segment.capacity()) {
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("frame of length " + length +
+                        " at offset " + position + " can not be mapped");
+                }
+
+                segmentStart = position;
+                segment = map(channel, position,
+                        Math.max(length,
+                            Math.min(maxSegment, fileLength - position)));
+            }
+
+            add(position);
+            position += length;
+        }
+
+        if (position < fileLength) {
+            LOGGER.warn("ignoring " + (fileLength - position) +
+                " bytes at the end of " + file);
+        }
+    }
+
+    private MappedByteBuffer map(FileChannel channel, long position,
+        long length) throws IOException {
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                position, length);
+        segments.add(segment);
+        segmentStarts.add(new Long(position));
+
+        return segment;
+    }
+
+    private void add(long offset) {
+        if (size == offsets.length) {
+            long[] grown = new long[size * 2];
+            System.arraycopy(offsets, 0, grown, 0, size);
+            offsets = grown;
+        }
+
+        offsets[size++] = offset;
+    }
+
+    /**
+     * @return the capture file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of frames in the file
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index of the frame
+     *
+     * @return offset of the frame in the file
+     *
+     * @throws IndexOutOfBoundsException if there is no frame at index
+     */
+    public long getOffset(int index) {
+        check(index);
+
+        return offsets[index];
+    }
+
+    /**
+     * @param index of the frame
+     *
+     * @return length of the frame in bytes, including the header
+     *
+     * @throws IndexOutOfBoundsException if there is no frame at index
+     */
+    public int getLength(int index) {
+        check(index);
+
+        // fits into an int, the frame lies within one segment
+        return frameSegment(index).getInt(start(index) + LENGTH_OFFSET);
+    }
+
+    /**
+     * the bytes of a frame as read-only buffer, position 0 and limit the
+     * length of the frame. Nothing is copied.
+     *
+     * @param index of the frame
+     *
+     * @return ByteBuffer
+     *
+     * @throws IndexOutOfBoundsException if there is no frame at index
+     */
+    public ByteBuffer getFrame(int index) {
+        int length = getLength(index);
+        int start = start(index);
+
+        // a buffer of its own, other threads use the same segment
+        ByteBuffer frame = frameSegment(index).duplicate();
+        frame.limit(start + length);
+        frame.position(start);
+
+        return frame.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * decode the message of a frame.
+     *
+     * @param index of the frame
+     *
+     * @return LLRPMessage
+     *
+     * @throws InvalidLLRPMessageException if the frame is no valid message
+     * @throws IndexOutOfBoundsException if there is no frame at index
+     */
+    public LLRPMessage getMessage(int index) throws InvalidLLRPMessageException {
+        return LLRPMessageFactory.createLLRPMessage(getFrame(index));
+    }
+
+    /**
+     * decode all messages with executor and pass each to handler. The frames
+     * are split into ranges decoded in parallel, so handler is called from
+     * several threads and not in the order of the frames. Returns once all
+     * messages are handled.
+     *
+     * @param executor decodes the messages, not shut down
+     * @param handler gets each message or the error decoding it
+     *
+     * @throws InterruptedException if interrupted while waiting for the
+     *         messages to be decoded
+     */
+    public void decode(ExecutorService executor, final Handler handler)
+        throws InterruptedException {
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+
+        for (int from = 0; from < size; from += FRAMES_PER_TASK) {
+            final int first = from;
+            final int last = Math.min(size, from + FRAMES_PER_TASK);
+            futures.add(executor.submit(new Callable<Object>() {
+                        public Object call() {
+                            for (int i = first; i < last; i++) {
+                                try {
+                                    handler.message(i, getMessage(i));
+                                } catch (InvalidLLRPMessageException e) {
+                                    handler.error(i, e);
+                                }
+                            }
+
+                            return null;
+                        }
+                    }));
+        }
+
+        try {
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<Object> future : futures) {
+                future.cancel(false);
+            }
+
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            // call throws nothing else
+            throw (Error) cause;
+        }
+    }
+
+    private void check(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("frame " + index + " of " +
+                size);
+        }
+    }
+
+    /**
+     * segment holding the frame at index: the last one starting at or before
+     * the frame.
+     */
+    private int segment(int index) {
+        long offset = offsets[index];
+        int low = 0;
+        int high = segmentStarts.size() - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (segmentStarts.get(middle).longValue() <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    private MappedByteBuffer frameSegment(int index) {
+        return segments.get(segment(index));
+    }
+
+    /**
+     * position of the frame at index in its segment.
+     */
+    private int start(int index) {
+        return (int) (offsets[index] -
+        segmentStarts.get(segment(index)).longValue());
+    }
+
+    public String toString() {
+        return "LLRPCaptureFile[" + file + ", " + size + " frames]";
+    }
+
+    /**
+     * receives the messages of decode.
+     */
+    public interface Handler {
+        /**
+         * @param index of the frame
+         * @param message decoded
+         */
+        void message(int index, LLRPMessage message);
+
+        /**
+         * @param index of the frame
+         * @param e why the frame could not be decoded
+         */
+        void error(int index, InvalidLLRPMessageException e);
+    }
+}
@@ -21,14 +21,11 @@ package org.llrp.ltk.util;
 
 import jargs.gnu.CmdLineParser;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
-import java.io.FilenameFilter;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.Level;
@@ -49,6 +46,8 @@ import org.llrp.ltk.types.LLRPMessage;
  * [{-d,--dir} directory path] directory with messages<p>
  * [{-f,--file} file path] single message to be converted<p>
  * [{-t,--targetDir} targetDirectory path] target directory for converted messages<p>
+ * [{-j,--threads} number] files of a directory converted in parallel, default is one per processor<p>
+ * The files of a directory are transcoded by LLRPTranscoder without building message objects.<p>
  * Example binary->xml file conversion to console: java -jar LTKJava<Version>.jar -b ADD_ROSPEC.bin<p>
  * Example xml->binary file conversion to console: java -jar LTKJava<Version>.jar -x ADD_ROSPEC.xml<p>
  * Example xml->binary file conversion of all files in a dir:
@@ -69,88 +68,28 @@ public class LLRPConverter {
 
 	}
 
-	private void convertFilesInDirectory(String dir, String target, Boolean xml) {
-
-		File testDir = new File(dir);
-
-		int i;
-		String filename;
-		String targetFile;
-		String targetDir;
-		String[] filenames;
-		FileWriter out;
-		String output;
-		FilenameFilter filter;
-		LLRPMessage message;
+	private void convertFilesInDirectory(String dir, String target, Boolean xml, int threads) {
 
 		// converted files are written to the destination directory if 
 		// no other directory is specified
-		if (target == null) {
-			targetDir = dir;
-		}
-		else {
-			targetDir = target; 
-		}
-			
-		
-		// find all binary or all xml files in the directory
-		if (xml == Boolean.FALSE) {
-			filter = new BinaryFilter();
+		File targetDir = (target == null) ? null : new File(target);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			int converted = new LLRPBatchConverter(executor).convertDirectory(
+					new File(dir), targetDir, xml.booleanValue());
+			System.out.println("Successfully converted " + converted + " files");
 		}
-		else {
-			filter = new XMLFilter();	
+		catch (InterruptedException e) {
+			System.err.println("Conversion interrupted");
+			Thread.currentThread().interrupt();
 		}
-		for (filenames = testDir.list(filter), i = 0;
-		filenames != null && i < filenames.length; i++) {
-
-			// for each file found, convert it, and write the result to the appropriate file
-			filename = filenames[i];
-			
-			int dotPos = filename.lastIndexOf(".");
-			
-			try {
-				if (xml == Boolean.TRUE) {
-					message = (LLRPMessage) Util.loadXMLLLRPMessage(new File(dir + "/" + filename)); 
-					filename = filename.substring(0, dotPos) + ".bin" ;
-					FileOutputStream ous = new FileOutputStream(new File(targetDir + "/" + filename));
-					ous.write(message.encodeBinary());
-					ous.flush();
-					ous.close();
-					System.out.println("Successfully converted to " + filename);
-
-				}
-				else {
-					message = (LLRPMessage) Util.loadBinaryLLRPMessage(new File(dir + "/" + filename)); 
-					filename = filename.substring(0, dotPos) + ".xml" ;
-					out = new FileWriter(new File(targetDir + "/" + filename));
-					out.write(message.toXMLString());
-					out.close();
-					System.out.println("Successfully converted to " + filename);
-				}
-			}
-			catch (InvalidLLRPMessageException e) {
-				System.err.println("LLRP Message is not valid " + filename);
-				System.err.println(e.getMessage());
-			}
-			catch (FileNotFoundException e) {
-				System.err.println("File not found " + filename);
-			}
-			catch (IOException e) {
-				System.err.println("File IO problem " + filename);
-			}
-
-			catch (JDOMException e) {
-				System.err.println("Could not create XML document to instantiate LLRP Message " + filename);
-				e.printStackTrace();	
-			}
-
-			
+		finally {
+			executor.shutdownNow();
 		}
 
-
 	}
 
-	private void convert(Boolean xml, Boolean binary, String file, String dir, String targetDir) {
+	private void convert(Boolean xml, Boolean binary, String file, String dir, String targetDir, int threads) {
 
 		LLRPMessage message;
 
@@ -161,7 +100,7 @@ public class LLRPConverter {
 					System.out.println(message.toXMLString());
 				}
 				else if (dir != null) {
-					convertFilesInDirectory(dir, targetDir, Boolean.FALSE);
+					convertFilesInDirectory(dir, targetDir, Boolean.FALSE, threads);
 				}
 				else {
 					System.err.println("This should never happen!");
@@ -176,7 +115,7 @@ public class LLRPConverter {
 					
 				}
 				else if (dir != null) {
-					convertFilesInDirectory(dir, targetDir, Boolean.TRUE);
+					convertFilesInDirectory(dir, targetDir, Boolean.TRUE, threads);
 				}
 				else {
 					System.err.println("This should never happen!");
@@ -214,7 +153,8 @@ public class LLRPConverter {
 				"                      [{-x,--xml}] input message(s) is in LTK XML format\n" +
 				"                      [{-d,--dir} directory path] directory with messages\n" +
 				"                      [{-f,--file} file path] single message to be converted\n" +
-		"                      [{-t,--targetDir} targetDirectory path] target directory for converted messages\n\n" +
+		"                      [{-t,--targetDir} targetDirectory path] target directory for converted messages\n" +
+		"                      [{-j,--threads} number] files of a directory converted in parallel, default is one per processor\n\n" +
 	    "Example binary->xml file conversion to console:\n java -jar LTKJava<Version>.jar -b -f ADD_ROSPEC.bin\n" +
 	    "Example xml->binary file conversion to console:\n java -jar LTKJava<Version>.jar -x -f ADD_ROSPEC.xml\n" +
 	    "Example xml->binary file conversion of all files in a dir:\n" +
@@ -239,6 +179,7 @@ public class LLRPConverter {
 		CmdLineParser.Option dir = parser.addStringOption('d',"dir"); 
 		CmdLineParser.Option file = parser.addStringOption('f',"file");
 		CmdLineParser.Option targetDir = parser.addStringOption('t',"targetDir");
+		CmdLineParser.Option threads = parser.addIntegerOption('j',"threads");
 
 		// Next, you must parse the user-provided command line arguments, and   
 		// catch any errors therein.                                            
@@ -269,6 +210,12 @@ public class LLRPConverter {
 		String dirValue = (String)parser.getOptionValue(dir);     
 		String fileValue = (String)parser.getOptionValue(file);
 		String targetDirValue = (String)parser.getOptionValue(targetDir);
+		Integer threadsValue = (Integer)parser.getOptionValue(threads,
+				new Integer(Runtime.getRuntime().availableProcessors()));
+
+		if (verboseValue.booleanValue()) {
+			rootLogger.setLevel(Level.INFO);
+		}
 
 		if ((xmlValue == null) && (binaryValue == null) && (fileValue == null) && (dirValue == null)){
 			printUsage();                                                       
@@ -315,27 +262,16 @@ public class LLRPConverter {
 			System.exit(2);
 		}
 
-		LLRPConverter converter = new LLRPConverter();
-
-		converter.convert(xmlValue, binaryValue, fileValue, dirValue, targetDirValue);
-
-	}
+		if (threadsValue.intValue() < 1){
+			System.err.println("Number of threads must be at least 1: " + threadsValue);
+			printUsage();                                                       
+			System.exit(2);
+		}
 
+		LLRPConverter converter = new LLRPConverter();
 
-	class BinaryFilter implements FilenameFilter {
-		public boolean accept(File dir, String name) {
-			return (name.endsWith(".bin"));
-		}
-	}
+		converter.convert(xmlValue, binaryValue, fileValue, dirValue, targetDirValue, threadsValue.intValue());
 
-	class XMLFilter implements FilenameFilter {
-		public boolean accept(File dir, String name) {
-			return (name.endsWith(".xml"));
-		}
 	}
-	
-
-	
 
 }
-
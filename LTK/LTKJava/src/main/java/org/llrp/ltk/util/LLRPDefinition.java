@@ -0,0 +1,224 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * layout of one message or parameter as given in llrpdef.xml: its fields and
+ * reserved bits in order, followed by the parameters it may contain. The
+ * generated LLRPTranscoderDefinitions build one definition per message and
+ * parameter; LLRPTranscoder walks them to transcode between the binary and
+ * the LTK XML encoding without creating message objects.
+ */
+public class LLRPDefinition {
+    private static final int TV_TYPES = 128;
+    private static final int TV_HEADERLENGTH = 8;
+    private final String name;
+    private final int typeNum;
+    final List<Field> fields = new ArrayList<Field>();
+    final List<Slot> slots = new ArrayList<Slot>();
+    private int tvLength = TV_HEADERLENGTH;
+
+    /**
+     * @param name of the message or parameter, also the name of its element
+     *        in LTK XML
+     * @param typeNum binary type number
+     */
+    public LLRPDefinition(String name, int typeNum) {
+        this.name = name;
+        this.typeNum = typeNum;
+    }
+
+    /**
+     * append a field.
+     *
+     * @param fieldName name of the field element in LTK XML
+     * @param type of the field
+     *
+     * @return this definition
+     */
+    public LLRPDefinition field(String fieldName, LLRPFieldType type) {
+        fields.add(new Field(fieldName, type, 0));
+        tvLength += type.length();
+
+        return this;
+    }
+
+    /**
+     * append reserved bits. They are written as 0 and not part of LTK XML.
+     *
+     * @param bits number of reserved bits
+     *
+     * @return this definition
+     */
+    public LLRPDefinition reserved(int bits) {
+        fields.add(new Field(null, null, bits));
+        tvLength += bits;
+
+        return this;
+    }
+
+    /**
+     * append a parameter, a choice of parameters or a list of them.
+     *
+     * @param repeat as in llrpdef.xml: 1, 0-1, 0-N or 1-N
+     * @param elementName element name used in LTK XML if the definition names
+     *        the parameter, null if the elements are named after their type
+     * @param types names of the parameters allowed, more than one for a
+     *        choice
+     *
+     * @return this definition
+     */
+    public LLRPDefinition parameter(String repeat, String elementName,
+        String[] types) {
+        slots.add(new Slot(repeat, elementName, types));
+
+        return this;
+    }
+
+    /**
+     * name of the message or parameter.
+     *
+     * @return String
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * binary type number.
+     *
+     * @return int
+     */
+    public int getTypeNum() {
+        return typeNum;
+    }
+
+    /**
+     * true for TV parameters. They have type numbers below 128, no length
+     * field and only fields of fixed length.
+     *
+     * @return boolean
+     */
+    public boolean isTV() {
+        return typeNum < TV_TYPES;
+    }
+
+    /**
+     * length in bits of a TV parameter including its header.
+     *
+     * @return int
+     */
+    public int getTVLength() {
+        return tvLength;
+    }
+
+    /**
+     * look up the definitions of the parameters allowed in the slots.
+     *
+     * @param parameters definitions by name
+     *
+     * @throws IllegalStateException if a parameter is not defined
+     */
+    void resolve(Map<String, LLRPDefinition> parameters) {
+        for (Slot slot : slots) {
+            slot.candidates = new LLRPDefinition[slot.types.length];
+
+            for (int i = 0; i < slot.types.length; i++) {
+                slot.candidates[i] = parameters.get(slot.types[i]);
+
+                if (slot.candidates[i] == null) {
+                    throw new IllegalStateException(name + " refers to " +
+                        slot.types[i] + " which is not defined");
+                }
+            }
+        }
+    }
+
+    /**
+     * a field or reserved bits.
+     */
+    static class Field {
+        final String name;
+        final LLRPFieldType type;
+        final int reservedBits;
+
+        Field(String name, LLRPFieldType type, int reservedBits) {
+            this.name = name;
+            this.type = type;
+            this.reservedBits = reservedBits;
+        }
+
+        boolean isReserved() {
+            return type == null;
+        }
+    }
+
+    /**
+     * place of a parameter or a list of parameters.
+     */
+    static class Slot {
+        final String elementName;
+        final String[] types;
+        final boolean required;
+        final boolean list;
+        LLRPDefinition[] candidates;
+
+        Slot(String repeat, String elementName, String[] types) {
+            this.elementName = elementName;
+            this.types = types;
+            this.required = repeat.startsWith("1");
+            this.list = repeat.endsWith("N");
+        }
+
+        /**
+         * definition of an allowed parameter by binary type number.
+         */
+        LLRPDefinition lookup(int type) {
+            for (int i = 0; i < candidates.length; i++) {
+                if (candidates[i].getTypeNum() == type) {
+                    return candidates[i];
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * definition of an allowed parameter by element name.
+         */
+        LLRPDefinition lookup(String element) {
+            for (int i = 0; i < candidates.length; i++) {
+                if (element.equals(elementName(candidates[i]))) {
+                    return candidates[i];
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * name of the element of a parameter in this slot.
+         */
+        String elementName(LLRPDefinition parameter) {
+            return (elementName == null) ? parameter.getName() : elementName;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import org.jdom.Element;
+import org.llrp.ltk.types.LLRPBitList;
+import org.llrp.ltk.types.LLRPBitReader;
+import org.llrp.ltk.types.LLRPType;
+import org.llrp.ltk.types.UnsignedShort;
+
+
+/**
+ * type of a field in a message or parameter definition used by
+ * LLRPTranscoder. The generated LLRPTranscoderDefinitions create one instance
+ * per LTK type, creating the values the same way generated messages and
+ * parameters do, from bits when decoding binary and from the field element
+ * when decoding LTK XML.
+ */
+public abstract class LLRPFieldType {
+    /**
+     * field of fixed length.
+     */
+    public static final int FIXED = 0;
+
+    /**
+     * array, a 16 bit element count followed by the elements.
+     */
+    public static final int ARRAY = 1;
+
+    /**
+     * field taking all bytes up to the end of the message or parameter.
+     */
+    public static final int BYTES_TO_END = 2;
+    private final int kind;
+    private final int length;
+
+    /**
+     * @param kind FIXED, ARRAY or BYTES_TO_END
+     * @param length in bits of a fixed field or of one array element, not
+     *        used for BYTES_TO_END
+     */
+    protected LLRPFieldType(int kind, int length) {
+        this.kind = kind;
+        this.length = length;
+    }
+
+    /**
+     * value decoded from its binary encoding.
+     *
+     * @param bits binary encoding of the value
+     *
+     * @return LLRPType
+     */
+    public abstract LLRPType create(LLRPBitList bits);
+
+    /**
+     * value decoded from a field element in LTK XML.
+     *
+     * @param element holding the value as text
+     *
+     * @return LLRPType
+     */
+    public abstract LLRPType create(Element element);
+
+    /**
+     * length in bits of a fixed field.
+     *
+     * @return int
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * true if the field has a fixed length.
+     *
+     * @return boolean
+     */
+    public boolean isFixed() {
+        return kind == FIXED;
+    }
+
+    /**
+     * read the field at the current position of reader. Arrays are padded to
+     * whole bytes, the padding is skipped.
+     *
+     * @param reader positioned at the field
+     * @param end bit position where the enclosing message or parameter ends
+     *
+     * @return LLRPType
+     *
+     * @throws IllegalArgumentException if the field extends beyond end
+     */
+    public LLRPType read(LLRPBitReader reader, int end) {
+        int n;
+
+        if (kind == ARRAY) {
+            int count = reader.peekBits(reader.position(),
+                    UnsignedShort.length());
+            n = (length * count) + UnsignedShort.length();
+        } else if (kind == BYTES_TO_END) {
+            n = end - reader.position();
+        } else {
+            n = length;
+        }
+
+        reader.checkAvailable(n, end);
+
+        LLRPType value = create(reader.readBitList(n));
+
+        if ((kind == ARRAY) && ((n % 8) > 0)) {
+            reader.skip(8 - (n % 8));
+        }
+
+        return value;
+    }
+}
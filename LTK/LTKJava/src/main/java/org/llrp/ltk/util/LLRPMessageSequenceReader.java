@@ -0,0 +1,251 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.log4j.Logger;
+import org.jdom.Document;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.types.LLRPMessage;
+
+
+/**
+ * LLRPMessageSequenceReader reads the messages of a LTK XML sequence
+ * document, a packetSequence element as described by llrpSequence.xsd, one
+ * after the other. Only the message being decoded is held in memory, so logs
+ * of any length can be read. A document holding a single message as root
+ * element is read as a sequence of one message.
+ * <p>
+ * Messages can be decoded by an executor. The reader then parses up to
+ * window message elements ahead and decodes them in parallel, read still
+ * returns the messages in document order.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * LLRPMessageSequenceReader reader = new LLRPMessageSequenceReader(
+ *         new BufferedInputStream(new FileInputStream(file)));
+ * try {
+ *     LLRPMessage message;
+ *     while ((message = reader.read()) != null) {
+ *         ...
+ *     }
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ */
+public class LLRPMessageSequenceReader {
+    /** name of the root element of a sequence document */
+    public static final String PACKET_SEQUENCE = "packetSequence";
+    private static final Logger LOGGER = Logger.getLogger(LLRPMessageSequenceReader.class);
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+            Boolean.FALSE);
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+
+    private final InputStream in;
+    private final XMLStreamReader reader;
+    private final ExecutorService executor;
+    private final int window;
+    private final LinkedList<Future<LLRPMessage>> pending = new LinkedList<Future<LLRPMessage>>();
+    private boolean started;
+    private boolean sequence;
+    private boolean finished;
+
+    /**
+     * reader decoding the messages in the calling thread.
+     *
+     * @param in LTK XML sequence document, closed by close
+     *
+     * @throws InvalidLLRPMessageException if in is not XML
+     */
+    public LLRPMessageSequenceReader(InputStream in)
+        throws InvalidLLRPMessageException {
+        this(in, null, 1);
+    }
+
+    /**
+     * reader decoding the messages with executor.
+     *
+     * @param in LTK XML sequence document, closed by close
+     * @param executor decodes the messages, null to decode in the calling
+     *        thread
+     * @param window maximum number of messages parsed ahead of read
+     *
+     * @throws InvalidLLRPMessageException if in is not XML
+     * @throws IllegalArgumentException if window is less than 1
+     */
+    public LLRPMessageSequenceReader(InputStream in, ExecutorService executor,
+        int window) throws InvalidLLRPMessageException {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1 but is " +
+                window);
+        }
+
+        this.in = in;
+        this.executor = executor;
+        this.window = window;
+
+        try {
+            this.reader = INPUT_FACTORY.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new InvalidLLRPMessageException(
+                "LTK XML sequence can not be read because " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * next message of the sequence.
+     *
+     * @return LLRPMessage or null at the end of the sequence
+     *
+     * @throws InvalidLLRPMessageException if the message can not be decoded,
+     *         following messages can still be read unless the document itself
+     *         is broken
+     */
+    public LLRPMessage read() throws InvalidLLRPMessageException {
+        if (executor == null) {
+            Document document = next();
+
+            return (document == null) ? null
+                                      : LLRPMessageFactory.createLLRPMessage(document);
+        }
+
+        while (pending.size() < window) {
+            final Document document = next();
+
+            if (document == null) {
+                break;
+            }
+
+            pending.add(executor.submit(new Callable<LLRPMessage>() {
+                    public LLRPMessage call() throws InvalidLLRPMessageException {
+                        return LLRPMessageFactory.createLLRPMessage(document);
+                    }
+                }));
+        }
+
+        if (pending.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return pending.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidLLRPMessageException("interrupted while decoding LTK XML message",
+                e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof InvalidLLRPMessageException) {
+                throw (InvalidLLRPMessageException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            // call throws nothing else
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * document of the next message element, null at the end of the sequence.
+     */
+    private Document next() throws InvalidLLRPMessageException {
+        if (finished) {
+            return null;
+        }
+
+        try {
+            if (!started) {
+                started = true;
+                reader.nextTag();
+
+                if (PACKET_SEQUENCE.equals(reader.getLocalName())) {
+                    sequence = true;
+                } else {
+                    // a single message as root element
+                    finished = true;
+
+                    return new Document(XMLStreamUtil.readElement(reader));
+                }
+            }
+
+            if (reader.nextTag() == XMLStreamReader.END_ELEMENT) {
+                finished = true;
+
+                return null;
+            }
+
+            return new Document(XMLStreamUtil.readElement(reader));
+        } catch (XMLStreamException e) {
+            finished = true;
+            throw new InvalidLLRPMessageException(
+                "LTK XML sequence can not be read because " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * true if the document has a packetSequence root element, false if it
+     * holds a single message. Known after the first call of read.
+     *
+     * @return boolean
+     */
+    public boolean isSequence() {
+        return sequence;
+    }
+
+    /**
+     * closes the reader and the underlying stream. Messages still being
+     * decoded are cancelled.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        for (Future<LLRPMessage> future : pending) {
+            future.cancel(false);
+        }
+
+        pending.clear();
+
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            LOGGER.warn("could not close XML reader: " + e.getMessage());
+        } finally {
+            in.close();
+        }
+    }
+}
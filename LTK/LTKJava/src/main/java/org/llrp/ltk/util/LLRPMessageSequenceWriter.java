@@ -0,0 +1,131 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jdom.Namespace;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPConstants;
+import org.llrp.ltk.types.LLRPMessage;
+
+
+/**
+ * LLRPMessageSequenceWriter writes messages to a LTK XML sequence document,
+ * a packetSequence element as described by llrpSequence.xsd. Each message is
+ * written as it is passed to write, nothing but the writer state is kept in
+ * memory. close ends the document.
+ */
+public class LLRPMessageSequenceWriter {
+    /** namespace of the packetSequence element */
+    public static final String SEQUENCE_NAMESPACE = "http://www.llrp.org/ltk/schema/testing/encoding/xml/0.6";
+    private static final Namespace PS = Namespace.getNamespace("ps",
+            SEQUENCE_NAMESPACE);
+    private static final Namespace LLRP = Namespace.getNamespace("llrp",
+            LLRPConstants.LLRPNAMESPACE);
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private final OutputStream out;
+    private final XMLStreamWriter writer;
+    private boolean closed;
+
+    /**
+     * starts the sequence document.
+     *
+     * @param out stream to write to, closed by close
+     *
+     * @throws InvalidLLRPMessageException if the document can not be started
+     */
+    public LLRPMessageSequenceWriter(OutputStream out)
+        throws InvalidLLRPMessageException {
+        this.out = out;
+
+        try {
+            writer = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            XMLStreamUtil.writeStartElement(writer, LLRPMessageSequenceReader.PACKET_SEQUENCE,
+                PS);
+            // declared once here instead of on every message
+            writer.writeNamespace(LLRP.getPrefix(), LLRP.getURI());
+        } catch (XMLStreamException e) {
+            throw new InvalidLLRPMessageException(
+                "LTK XML sequence can not be written because " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * appends message to the sequence.
+     *
+     * @param message to be written
+     *
+     * @throws InvalidLLRPMessageException if the message can not be encoded
+     * @throws IllegalStateException if the writer is closed
+     */
+    public void write(LLRPMessage message) throws InvalidLLRPMessageException {
+        if (closed) {
+            throw new IllegalStateException("sequence writer is closed");
+        }
+
+        try {
+            message.encodeXML(writer);
+        } catch (XMLStreamException e) {
+            throw new InvalidLLRPMessageException("LTK XML message can not be written because " +
+                e.getMessage(), e);
+        }
+    }
+
+    /**
+     * writes buffered output to the underlying stream.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        try {
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        out.flush();
+    }
+
+    /**
+     * ends the sequence document and closes the underlying stream.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.log4j.Logger;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPConstants;
+import org.llrp.ltk.generated.LLRPTranscoderDefinitions;
+import org.llrp.ltk.types.LLRPBitReader;
+import org.llrp.ltk.types.LLRPBitWriter;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.LLRPType;
+import org.llrp.ltk.types.UnsignedInteger;
+
+
+/**
+ * transcodes LLRP messages between the binary encoding and LTK XML without
+ * building LLRPMessage objects or JDOM documents. The binary frame is walked
+ * with an LLRPBitReader and written as StAX events, LTK XML is read with an
+ * XMLStreamReader and written through an LLRPBitWriter. Only the value of
+ * one field at a time is held in memory.
+ * <p>
+ * The layout of messages and parameters comes from LLRPTranscoderDefinitions,
+ * generated from llrpdef.xml like the message classes, and the XML produced
+ * is the same as that of LLRPMessage.encodeXML. LTK XML must list fields and
+ * parameters in the order of the definition, as the LTK schema requires. The
+ * messages are not validated against the schema. Vendor parameters are
+ * transcoded as Custom parameters.
+ */
+public final class LLRPTranscoder {
+    private static final Logger LOGGER = Logger.getLogger(LLRPTranscoder.class);
+    private static final int MESSAGETYPES = 1 << LLRPMessage.TYPENUMBERLENGTH;
+    private static final int RESERVEDLENGTH = 3;
+    private static final int TV_TYPELENGTH = 7;
+    private static final int TLV_RESERVEDLENGTH = 6;
+    private static final int PARAMETERLENGTHLENGTH = 16;
+    private static final int TLV_HEADERLENGTH = 32;
+    private static final int MIN_BUFFER_SIZE = 1024;
+    private static final LLRPDefinition[] messagesByType = new LLRPDefinition[MESSAGETYPES];
+    private static final HashMap<String, LLRPDefinition> messagesByName = new HashMap<String, LLRPDefinition>();
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    static {
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+            Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+
+        HashMap<String, LLRPDefinition> parameters = new HashMap<String, LLRPDefinition>();
+
+        for (LLRPDefinition parameter : LLRPTranscoderDefinitions.parameters()) {
+            parameters.put(parameter.getName(), parameter);
+        }
+
+        for (LLRPDefinition parameter : parameters.values()) {
+            parameter.resolve(parameters);
+        }
+
+        for (LLRPDefinition message : LLRPTranscoderDefinitions.messages()) {
+            message.resolve(parameters);
+            messagesByType[message.getTypeNum()] = message;
+            messagesByName.put(message.getName(), message);
+        }
+    }
+
+    private LLRPTranscoder() {
+    }
+
+    /**
+     * write the binary message in frame as LTK XML document to out.
+     *
+     * @param frame holding exactly one message in its remaining bytes. Its
+     *        position is not changed.
+     * @param out stream to write to, not closed
+     *
+     * @throws InvalidLLRPMessageException if the message is not well formatted
+     *         or can not be written
+     */
+    public static void toXML(ByteBuffer frame, OutputStream out)
+        throws InvalidLLRPMessageException {
+        try {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out,
+                    "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            toXML(frame, writer);
+            writer.writeEndDocument();
+            // closes the writer only, not out
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new InvalidLLRPMessageException(
+                "LTK XML message can not be written because " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * write the binary message in frame as LTK XML element to writer.
+     *
+     * @param frame holding exactly one message in its remaining bytes. Its
+     *        position is not changed.
+     * @param writer to write to
+     *
+     * @throws InvalidLLRPMessageException if the message is not well formatted
+     * @throws XMLStreamException if writer fails
+     */
+    public static void toXML(ByteBuffer frame, XMLStreamWriter writer)
+        throws InvalidLLRPMessageException, XMLStreamException {
+        try {
+            LLRPBitReader reader = new LLRPBitReader(frame);
+
+            if (reader.limit() < LLRPMessage.MINHEADERLENGTH) {
+                throw new InvalidLLRPMessageException(
+                    "Invalid binary message: Bit String is too short");
+            }
+
+            reader.skip(RESERVEDLENGTH);
+
+            int version = reader.readBits(LLRPMessage.VERSIONLENGTH);
+            int type = reader.readBits(LLRPMessage.TYPENUMBERLENGTH);
+            long length = reader.readUnsignedInt();
+            long messageID = reader.readUnsignedInt();
+            LLRPDefinition message = messagesByType[type];
+
+            if (message == null) {
+                throw new InvalidLLRPMessageException("message type " + type +
+                    " unknown");
+            }
+
+            if ((8 * length) != reader.limit()) {
+                throw new InvalidLLRPMessageException(
+                    "message length not equal to length given in message ");
+            }
+
+            Namespace ns = LLRPConstants.LLRP_NS;
+            XMLStreamUtil.writeStartElement(writer, message.getName(), ns);
+            writer.writeAttribute("Version", Integer.toString(version));
+            writer.writeAttribute("MessageID", Long.toString(messageID));
+            writeBody(message, reader, reader.limit(), writer);
+            writer.writeEndElement();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidLLRPMessageException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * encode the LTK XML message of xml in binary.
+     *
+     * @param xml LTK XML document
+     *
+     * @return binary message
+     *
+     * @throws InvalidLLRPMessageException if the message is not well formatted
+     */
+    public static byte[] toBinary(byte[] xml)
+        throws InvalidLLRPMessageException {
+        int size = Math.max(xml.length, MIN_BUFFER_SIZE);
+
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+
+            try {
+                XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(
+                            xml));
+
+                try {
+                    toBinary(reader, buffer);
+                } finally {
+                    reader.close();
+                }
+
+                byte[] result = new byte[buffer.position()];
+                buffer.flip();
+                buffer.get(result);
+
+                return result;
+            } catch (BufferOverflowException e) {
+                // arrays of numbers can be longer in binary than in XML
+                LOGGER.debug("binary message longer than " + size + " bytes");
+                size *= 2;
+            } catch (XMLStreamException e) {
+                throw new InvalidLLRPMessageException(
+                    "LTK XML message can not be read because " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * encode the LTK XML message read from reader into buffer, starting at the
+     * current position of buffer. On success the position of buffer is
+     * advanced by the length of the message and reader is positioned at the
+     * end tag of the message.
+     *
+     * @param reader at the start of the document or the start tag of the
+     *        message
+     * @param buffer to write into
+     *
+     * @return length of the message in bytes
+     *
+     * @throws InvalidLLRPMessageException if the message is not well formatted
+     * @throws XMLStreamException if reader fails
+     * @throws BufferOverflowException if the message does not fit into the
+     *         remaining bytes of buffer. The position of buffer is not changed
+     *         in this case.
+     */
+    public static int toBinary(XMLStreamReader reader, ByteBuffer buffer)
+        throws InvalidLLRPMessageException, XMLStreamException {
+        try {
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                reader.nextTag();
+            }
+
+            LLRPDefinition message = messagesByName.get(reader.getLocalName());
+
+            if (message == null) {
+                throw new InvalidLLRPMessageException("message " +
+                    reader.getLocalName() + " unknown");
+            }
+
+            // if the version attribute is not set it is version 001, as in
+            // the decodeXML of generated messages
+            String versionAttribute = reader.getAttributeValue(null, "Version");
+            int version = (versionAttribute == null) ? 1
+                                                     : Integer.parseInt(versionAttribute);
+
+            if ((version < 0) || (version >= (1 << LLRPMessage.VERSIONLENGTH))) {
+                throw new InvalidLLRPMessageException("Version " + version +
+                    " out of range");
+            }
+
+            String messageIDAttribute = reader.getAttributeValue(null,
+                    "MessageID");
+
+            if (messageIDAttribute == null) {
+                throw new InvalidLLRPMessageException("MessageID not set");
+            }
+
+            UnsignedInteger messageID = new UnsignedInteger(messageIDAttribute);
+
+            LLRPBitWriter writer = new LLRPBitWriter(buffer);
+            writer.writeZeros(RESERVEDLENGTH);
+            writer.writeBits(version, LLRPMessage.VERSIONLENGTH);
+            writer.writeBits(message.getTypeNum(), LLRPMessage.TYPENUMBERLENGTH);
+
+            // length is not known yet and patched below
+            int lengthPosition = writer.position();
+            writer.writeBits(0, UnsignedInteger.length());
+            writer.writeBits(messageID.intValue(), UnsignedInteger.length());
+            readBody(message, reader, writer);
+
+            int lengthBytes = writer.byteLength();
+            writer.patchBits(lengthPosition, lengthBytes,
+                UnsignedInteger.length());
+            buffer.position(buffer.position() + lengthBytes);
+
+            return lengthBytes;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidLLRPMessageException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * write fields and parameters of definition from reader, which is
+     * positioned after the header.
+     */
+    private static void writeBody(LLRPDefinition definition,
+        LLRPBitReader reader, int end, XMLStreamWriter writer)
+        throws InvalidLLRPMessageException, XMLStreamException {
+        // child elements are always in the LLRP namespace
+        Namespace ns = LLRPConstants.LLRP_NS;
+
+        for (LLRPDefinition.Field field : definition.fields) {
+            if (field.isReserved()) {
+                reader.checkAvailable(field.reservedBits, end);
+                reader.skip(field.reservedBits);
+            } else {
+                field.type.read(reader, end).encodeXML(field.name, ns, writer);
+            }
+        }
+
+        for (LLRPDefinition.Slot slot : definition.slots) {
+            int count = 0;
+
+            while ((count == 0) || slot.list) {
+                // look ahead to see type, -1 if no parameter header is left
+                int type = reader.peekParameterType(end);
+
+                if (type < 0) {
+                    break;
+                }
+
+                LLRPDefinition parameter = slot.lookup(type);
+
+                if (parameter == null) {
+                    break;
+                }
+
+                int length = reader.isTVParameter() ? parameter.getTVLength()
+                                                    : reader.peekParameterLength();
+                writeParameter(parameter, slot.elementName(parameter), reader,
+                    length, end, writer);
+                count++;
+            }
+
+            if ((count == 0) && slot.required) {
+                throw new InvalidLLRPMessageException(definition.getName() +
+                    " misses non optional parameter of type " + slot.types[0]);
+            }
+        }
+    }
+
+    private static void writeParameter(LLRPDefinition parameter, String name,
+        LLRPBitReader reader, int length, int end, XMLStreamWriter writer)
+        throws InvalidLLRPMessageException, XMLStreamException {
+        int start = reader.position();
+
+        if (!parameter.isTV() && (length < TLV_HEADERLENGTH)) {
+            throw new IllegalArgumentException("incorrect length");
+        }
+
+        reader.checkAvailable(length, end);
+        reader.skip(parameter.isTV() ? (1 + TV_TYPELENGTH) : TLV_HEADERLENGTH);
+        XMLStreamUtil.writeStartElement(writer, name, LLRPConstants.LLRP_NS);
+        writeBody(parameter, reader, start + length, writer);
+        writer.writeEndElement();
+        reader.position(start + length);
+    }
+
+    /**
+     * write fields and parameters of definition from the children of the
+     * current element of reader. On return reader is positioned at the end
+     * tag of the element.
+     */
+    private static void readBody(LLRPDefinition definition,
+        XMLStreamReader reader, LLRPBitWriter writer)
+        throws InvalidLLRPMessageException, XMLStreamException {
+        Namespace ns = LLRPConstants.LLRP_NS;
+        int event = reader.nextTag();
+
+        for (LLRPDefinition.Field field : definition.fields) {
+            if (field.isReserved()) {
+                writer.writeZeros(field.reservedBits);
+
+                continue;
+            }
+
+            if ((event != XMLStreamConstants.START_ELEMENT) ||
+                    !field.name.equals(reader.getLocalName())) {
+                throw new InvalidLLRPMessageException("Element " + field.name +
+                    " not provided in " + definition.getName());
+            }
+
+            // attributes like the Count of BitArray_HEX are part of the value
+            Element element = new Element(field.name, ns);
+
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                element.setAttribute(reader.getAttributeLocalName(i),
+                    reader.getAttributeValue(i));
+            }
+
+            element.setText(reader.getElementText());
+
+            LLRPType value = field.type.create(element);
+            writer.write(value.encodeBinary());
+            event = reader.nextTag();
+        }
+
+        for (LLRPDefinition.Slot slot : definition.slots) {
+            int count = 0;
+
+            while ((event == XMLStreamConstants.START_ELEMENT) &&
+                    ((count == 0) || slot.list)) {
+                LLRPDefinition parameter = slot.lookup(reader.getLocalName());
+
+                if (parameter == null) {
+                    break;
+                }
+
+                readParameter(parameter, reader, writer);
+                count++;
+                event = reader.nextTag();
+            }
+
+            if ((count == 0) && slot.required) {
+                throw new InvalidLLRPMessageException(definition.getName() +
+                    " misses non optional parameter of type " + slot.types[0]);
+            }
+        }
+
+        if (event != XMLStreamConstants.END_ELEMENT) {
+            throw new InvalidLLRPMessageException("Element " +
+                reader.getLocalName() + " not allowed in " +
+                definition.getName());
+        }
+    }
+
+    private static void readParameter(LLRPDefinition parameter,
+        XMLStreamReader reader, LLRPBitWriter writer)
+        throws InvalidLLRPMessageException, XMLStreamException {
+        int start = writer.position();
+
+        if (parameter.isTV()) {
+            // first bit must always be set to 1
+            writer.writeBits(1, 1);
+            writer.writeBits(parameter.getTypeNum(), TV_TYPELENGTH);
+            readBody(parameter, reader, writer);
+
+            return;
+        }
+
+        writer.writeZeros(TLV_RESERVEDLENGTH);
+        writer.writeBits(parameter.getTypeNum(), LLRPMessage.TYPENUMBERLENGTH);
+        writer.writeBits(0, PARAMETERLENGTHLENGTH);
+        readBody(parameter, reader, writer);
+        writer.patchBits(start + TLV_RESERVEDLENGTH +
+            LLRPMessage.TYPENUMBERLENGTH, (writer.position() - start + 7) / 8,
+            PARAMETERLENGTHLENGTH);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+
+
+/**
+ * options for writing LTK XML documents as text. PRETTY indents every
+ * element and is what toXMLString returns by default, COMPACT writes the
+ * document without any whitespace between elements, which is 30 to 40
+ * percent smaller.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads, each
+ * thread formats with an XMLOutputter of its own that is reused for all its
+ * documents.
+ */
+public final class LLRPXMLOutputOptions {
+    /** indented output with namespace declarations */
+    public static final LLRPXMLOutputOptions PRETTY = new LLRPXMLOutputOptions(true,
+            true);
+
+    /** output without whitespace between elements, with namespace declarations */
+    public static final LLRPXMLOutputOptions COMPACT = new LLRPXMLOutputOptions(false,
+            true);
+    private final boolean pretty;
+    private final boolean namespaceDeclarations;
+    private final ThreadLocal<XMLOutputter> outputters = new ThreadLocal<XMLOutputter>() {
+            protected XMLOutputter initialValue() {
+                return new XMLOutputter(pretty ? Format.getPrettyFormat()
+                                               : Format.getCompactFormat());
+            }
+        };
+
+    /**
+     * @param pretty true to indent elements, false for compact output
+     * @param namespaceDeclarations false to write all elements without
+     *        namespace prefix and without xmlns attributes. The output is
+     *        smaller but no longer valid LTK XML, it is meant for consumers
+     *        that know the message format.
+     */
+    public LLRPXMLOutputOptions(boolean pretty, boolean namespaceDeclarations) {
+        this.pretty = pretty;
+        this.namespaceDeclarations = namespaceDeclarations;
+    }
+
+    /**
+     * @return true if elements are indented
+     */
+    public boolean isPretty() {
+        return pretty;
+    }
+
+    /**
+     * @return true if namespace prefixes and declarations are written
+     */
+    public boolean isNamespaceDeclarations() {
+        return namespaceDeclarations;
+    }
+
+    /**
+     * document as text. If namespace declarations are omitted, the elements
+     * of document are moved to no namespace.
+     *
+     * @param document to be written
+     *
+     * @return String
+     */
+    public String outputString(Document document) {
+        prepare(document);
+
+        return outputters.get().outputString(document);
+    }
+
+    /**
+     * writes document to out. If namespace declarations are omitted, the
+     * elements of document are moved to no namespace.
+     *
+     * @param document to be written
+     * @param out stream to write to, not closed
+     *
+     * @throws IOException
+     */
+    public void output(Document document, OutputStream out)
+        throws IOException {
+        prepare(document);
+        outputters.get().output(document, out);
+    }
+
+    private void prepare(Document document) {
+        if (!namespaceDeclarations && document.hasRootElement()) {
+            removeNamespaces(document.getRootElement());
+        }
+    }
+
+    private static void removeNamespaces(Element element) {
+        element.setNamespace(Namespace.NO_NAMESPACE);
+
+        // copy, removing declarations changes the live list
+        for (Object declaration : element.getAdditionalNamespaces().toArray()) {
+            element.removeNamespaceDeclaration((Namespace) declaration);
+        }
+
+        for (Object child : element.getChildren()) {
+            removeNamespaces((Element) child);
+        }
+    }
+
+    public String toString() {
+        return "LLRPXMLOutputOptions[pretty=" + pretty +
+        ", namespaceDeclarations=" + namespaceDeclarations + "]";
+    }
+}
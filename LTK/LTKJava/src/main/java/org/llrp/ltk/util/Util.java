@@ -2,17 +2,16 @@ package org.llrp.ltk.util;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.log4j.Logger;
-import org.jdom.Document;
 import org.jdom.JDOMException;
-import org.jdom.output.Format;
-import org.jdom.output.XMLOutputter;
 import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
 import org.llrp.ltk.generated.LLRPMessageFactory;
 import org.llrp.ltk.types.LLRPBitList;
@@ -41,23 +40,33 @@ public class Util {
 	
 	public static LLRPBitList loadBinaryFileContent(File file) throws IOException, FileNotFoundException{
 
-		
-		FileInputStream fis = new FileInputStream(file);
-		BufferedInputStream bis = new BufferedInputStream(fis);
-		
-		
-		LLRPBitList bitlist = new LLRPBitList();
-		
-        while (bis.available() > 0) {
-        	byte[] bytes = new byte[bis.available()];
-        	int length = bis.read(bytes);
-        	bitlist.append(new LLRPBitList(bytes));
-        }
-    
-        fis.close();
-        bis.close();
-		return bitlist;
-        
+		return new LLRPBitList(loadBinaryFile(file));
+	}
+	
+	/**
+	 * loads a binary file from the file system in one read into an array of
+	 * the length of the file.
+	 * 
+	 * @param file
+	 * @return file contents
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 */
+	
+	public static byte[] loadBinaryFile(File file) throws IOException, FileNotFoundException{
+
+		long length = file.length();
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("file too large: " + file);
+		}
+		byte[] bytes = new byte[(int) length];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(bytes);
+		} finally {
+			in.close();
+		}
+		return bytes;
 	}
 	
 	
@@ -106,15 +115,18 @@ public class Util {
 	public static LLRPMessage loadBinaryLLRPMessage(File file) throws FileNotFoundException, IOException, InvalidLLRPMessageException {
 	
 		
-		LLRPBitList bits = loadBinaryFileContent(file);
-		LOGGER.debug("Loaded binary message: " + bits);
-		LLRPMessage message = LLRPMessageFactory.createLLRPMessage(bits);
+		byte[] bytes = loadBinaryFile(file);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Loaded binary message: " + new LLRPBitList(bytes));
+		}
+		LLRPMessage message = LLRPMessageFactory.createLLRPMessage(bytes);
 	
 		return message;
 	}
 
 	/**
-	 * loads a LLRPMessage in LTK-XML format from the file system and returns an LLRPMessage object
+	 * loads a LLRPMessage in LTK-XML format from the file system and returns an LLRPMessage object.
+	 * The file is read with a StAX reader, no JDOM tree of the whole file is built.
 	 * 
 	 * @param file
 	 * @return LLRPMessage
@@ -125,11 +137,16 @@ public class Util {
 	
 	public static LLRPMessage loadXMLLLRPMessage(File file) throws FileNotFoundException, IOException, JDOMException, InvalidLLRPMessageException {
 	
-		Document doc = new org.jdom.input.SAXBuilder().build(new
-				FileReader(file));
-		XMLOutputter outputter = new XMLOutputter(Format.getPrettyFormat());
-		LOGGER.debug("Loaded XML Message: " + outputter.outputString(doc));
-		LLRPMessage message = LLRPMessageFactory.createLLRPMessage(doc);
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		LLRPMessage message;
+		try {
+			message = LLRPMessageFactory.createLLRPMessage(in);
+		} finally {
+			in.close();
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Loaded XML Message: " + message.toXMLString());
+		}
 	
 		return message;
 	}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2007 ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.llrp.ltk.util;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jdom.Attribute;
+import org.jdom.Content;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.jdom.Text;
+
+
+/**
+ * Helpers for writing LTK XML to a StAX XMLStreamWriter and reading it from
+ * an XMLStreamReader. Generated messages and parameters use them to write
+ * their elements directly; types and parameters without a streaming encoder
+ * of their own are written from the JDOM content they return from encodeXML.
+ * Messages are read one element at a time, so that a stream of messages can
+ * be decoded without holding more than one of them in memory.
+ */
+public final class XMLStreamUtil {
+    private XMLStreamUtil() {
+    }
+
+    /**
+     * write a start element, declaring its namespace if the prefix is not
+     * bound to it yet.
+     *
+     * @param writer to write to
+     * @param name local name of the element
+     * @param ns namespace of the element
+     *
+     * @throws XMLStreamException
+     */
+    public static void writeStartElement(XMLStreamWriter writer, String name,
+        Namespace ns) throws XMLStreamException {
+        String prefix = ns.getPrefix();
+        String uri = ns.getURI();
+        // bindings of the enclosing elements, asked before the start tag
+        // binds the prefix for this element
+        String bound = writer.getNamespaceContext().getNamespaceURI(prefix);
+        writer.writeStartElement(prefix, name, uri);
+
+        if (!uri.equals((bound == null) ? "" : bound)) {
+            if (prefix.length() == 0) {
+                writer.writeDefaultNamespace(uri);
+            } else {
+                writer.writeNamespace(prefix, uri);
+            }
+        }
+    }
+
+    /**
+     * write an element holding text only.
+     *
+     * @param writer to write to
+     * @param name local name of the element
+     * @param ns namespace of the element
+     * @param text content of the element
+     *
+     * @throws XMLStreamException
+     */
+    public static void writeElement(XMLStreamWriter writer, String name,
+        Namespace ns, String text) throws XMLStreamException {
+        writeStartElement(writer, name, ns);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+
+    /**
+     * write JDOM content, an element with all its attributes and children or
+     * a text.
+     *
+     * @param writer to write to
+     * @param content to be written
+     *
+     * @throws XMLStreamException
+     */
+    public static void writeContent(XMLStreamWriter writer, Content content)
+        throws XMLStreamException {
+        if (content instanceof Text) {
+            writer.writeCharacters(((Text) content).getText());
+
+            return;
+        }
+
+        if (!(content instanceof Element)) {
+            // comments and processing instructions are not part of LTK XML
+            return;
+        }
+
+        Element element = (Element) content;
+        writeStartElement(writer, element.getName(), element.getNamespace());
+
+        NamespaceContext context = writer.getNamespaceContext();
+
+        for (Object declaration : element.getAdditionalNamespaces()) {
+            Namespace ns = (Namespace) declaration;
+
+            // generated messages declare their own namespace again on the
+            // root element, writeStartElement has bound it already
+            if (!ns.getURI().equals(context.getNamespaceURI(ns.getPrefix()))) {
+                writer.writeNamespace(ns.getPrefix(), ns.getURI());
+            }
+        }
+
+        for (Object o : element.getAttributes()) {
+            Attribute attribute = (Attribute) o;
+            Namespace ns = attribute.getNamespace();
+
+            if (ns.getURI().length() == 0) {
+                writer.writeAttribute(attribute.getName(), attribute.getValue());
+            } else {
+                writer.writeAttribute(ns.getPrefix(), ns.getURI(),
+                    attribute.getName(), attribute.getValue());
+            }
+        }
+
+        for (Object child : element.getContent()) {
+            writeContent(writer, (Content) child);
+        }
+
+        writer.writeEndElement();
+    }
+
+    /**
+     * read the element at the current position of reader, with all its
+     * attributes and children, into a JDOM element. On return reader is
+     * positioned at the end tag of the element.
+     *
+     * @param reader positioned at a start tag
+     *
+     * @return Element
+     *
+     * @throws XMLStreamException
+     */
+    public static Element readElement(XMLStreamReader reader)
+        throws XMLStreamException {
+        reader.require(XMLStreamConstants.START_ELEMENT, null, null);
+
+        Element element = new Element(reader.getLocalName(),
+                namespace(reader.getPrefix(), reader.getNamespaceURI()));
+
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            Namespace ns = namespace(reader.getNamespacePrefix(i),
+                    reader.getNamespaceURI(i));
+
+            if (!ns.getPrefix().equals(element.getNamespacePrefix())) {
+                element.addNamespaceDeclaration(ns);
+            }
+        }
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String uri = reader.getAttributeNamespace(i);
+
+            if ((uri == null) || (uri.length() == 0)) {
+                element.setAttribute(reader.getAttributeLocalName(i),
+                    reader.getAttributeValue(i));
+            } else {
+                element.setAttribute(reader.getAttributeLocalName(i),
+                    reader.getAttributeValue(i),
+                    namespace(reader.getAttributePrefix(i), uri));
+            }
+        }
+
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                element.addContent(readElement(reader));
+
+                break;
+
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                element.addContent(new Text(reader.getText()));
+
+                break;
+
+            case XMLStreamConstants.END_ELEMENT:
+                return element;
+
+            default:
+                // comments and processing instructions are not part of LTK XML
+                break;
+            }
+        }
+    }
+
+    private static Namespace namespace(String prefix, String uri) {
+        return Namespace.getNamespace((prefix == null) ? "" : prefix,
+            (uri == null) ? "" : uri);
+    }
+}
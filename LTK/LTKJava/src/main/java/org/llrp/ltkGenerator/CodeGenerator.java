@@ -154,6 +154,9 @@ public class CodeGenerator {
 		logger.debug("start generating parameters");
 		generateParameters();
 		logger.debug("finished generating parameters");
+		logger.debug("start generating transcoder definitions");
+		generateTranscoderDefinitions();
+		logger.debug("finished generating transcoder definitions");
 		logger.debug("start generating interfaces");
 		generateInterfaces();
 		logger.debug("finished generating interfaces");
@@ -249,6 +252,48 @@ public class CodeGenerator {
 		}
 	}
 
+	/**
+	 * generates LLRPTranscoderDefinitions.java, the layout of all messages and
+	 * parameters for the LLRPTranscoder, using the
+	 * TranscoderDefinitionsTemplate.
+	 */
+	private void generateTranscoderDefinitions() {
+		logger.debug("using template "
+				+ properties.getString("transcoderDefinitionsTemplate"));
+		logger.debug("generating TranscoderDefinitions");
+
+		try {
+			VelocityContext context = new VelocityContext();
+			context.put("messages", messages);
+			context.put("parameters", parameters);
+			context.put("utility", utility);
+			Template template = Velocity.getTemplate(properties
+					.getString("transcoderDefinitionsTemplate"));
+			BufferedWriter writer = new BufferedWriter(new FileWriter(
+					properties.getString("generatedBase")
+							+ "LLRPTranscoderDefinitions"
+							+ properties.getString("fileEnding")));
+			template.merge(context, writer);
+			writer.flush();
+			writer.close();
+		} catch (ResourceNotFoundException e) {
+			logger.error("Exception while generating code: "
+					+ e.getLocalizedMessage() + " caused by " + e.getCause());
+		} catch (ParseErrorException e) {
+			logger.error("Exception while generating code: "
+					+ e.getLocalizedMessage() + " caused by " + e.getCause());
+		} catch (MethodInvocationException e) {
+			logger.error("Exception while generating code: "
+					+ e.getLocalizedMessage() + " caused by " + e.getCause());
+		} catch (IOException e) {
+			logger.error("Exception while generating code: "
+					+ e.getLocalizedMessage() + " caused by " + e.getCause());
+		} catch (Exception e) {
+			logger.error("Exception while generating code: "
+					+ e.getLocalizedMessage() + " caused by " + e.getCause());
+		}
+	}
+
 	/**
 	 * generates LLRP Messages using the MessageTemplate and the definitions in
 	 * llrpdef.xml.
@@ -0,0 +1,42 @@
+package org.llrp.ltk.generated.custom.enumerations;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+import junit.framework.TestCase;
+
+public class LlrpOrgEnumeration1Test extends TestCase {
+
+	public void testName() {
+		LlrpOrgEnumeration1 e = new LlrpOrgEnumeration1("v3");
+		assertEquals("value of name not set", LlrpOrgEnumeration1.v3, e.intValue());
+		assertEquals("v3", e.toString());
+
+		e.set("v6");
+		assertEquals("value of name not set", LlrpOrgEnumeration1.v6, e.intValue());
+		e.set(LlrpOrgEnumeration1.v2);
+		assertEquals("v2", e.toString());
+	}
+
+	public void testInvalidValue() {
+		try {
+			new LlrpOrgEnumeration1(6);
+			fail("value not in the enumeration must be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testBinary() {
+		LlrpOrgEnumeration1 e = new LlrpOrgEnumeration1(LlrpOrgEnumeration1.v5);
+		assertEquals("u32 enumeration not encoded in 32 bits", 32, e.encodeBinary().length());
+		assertEquals("v5", new LlrpOrgEnumeration1(e.encodeBinary()).toString());
+	}
+
+	public void testXML() {
+		LlrpOrgEnumeration1 e = new LlrpOrgEnumeration1(LlrpOrgEnumeration1.v4);
+		Element element = (Element) e.encodeXML("test_field13_u32", Namespace.NO_NAMESPACE);
+		assertEquals("v4", element.getText());
+		assertEquals(LlrpOrgEnumeration1.v4, new LlrpOrgEnumeration1(element).intValue());
+	}
+}
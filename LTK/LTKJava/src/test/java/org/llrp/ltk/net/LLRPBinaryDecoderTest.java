@@ -0,0 +1,97 @@
+package org.llrp.ltk.net;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.log4j.BasicConfigurator;
+import org.llrp.ltk.generated.messages.RO_ACCESS_REPORT;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.util.Util;
+
+public class LLRPBinaryDecoderTest extends TestCase implements LLRPEndpoint {
+
+	private static final int PORT = 25085;
+	/** RO_ACCESS_REPORT claiming a TagReportData longer than the message */
+	private static final byte[] INVALID = { 0x04, 0x3d, 0, 0, 0, 0x0e, 0, 0, 0, 0, 0, (byte) 0xf0, 0, 0x20 };
+
+	LLRPAcceptor acceptor;
+	BlockingQueue<LLRPMessage> messages = new LinkedBlockingQueue<LLRPMessage>();
+	BlockingQueue<String> errors = new LinkedBlockingQueue<String>();
+	byte[] frame;
+	Socket reader;
+	OutputStream stream;
+
+	protected void setUp() throws Exception {
+		BasicConfigurator.configure();
+		frame = Util.loadBinaryFile(new File("src/test/resources/RO_ACCESS_REPORT.bin"));
+		acceptor = new LLRPAcceptor(this, PORT);
+		acceptor.bind();
+		reader = new Socket("localhost", PORT);
+		stream = reader.getOutputStream();
+	}
+
+	protected void tearDown() throws Exception {
+		reader.close();
+		acceptor.close();
+	}
+
+	public void testSplitFrame() throws Exception {
+		int half = frame.length / 2;
+		write(frame, 0, 4);
+		write(frame, 4, half - 4);
+		assertNull("message decoded before it was complete", messages.poll(200, TimeUnit.MILLISECONDS));
+		write(frame, half, frame.length - half);
+		assertReport();
+		assertNull(messages.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	public void testInvalidFrame() throws Exception {
+		// [good][invalid][first part of good] followed by [rest of good]
+		int split = 7;
+		byte[] first = new byte[frame.length + INVALID.length + split];
+		System.arraycopy(frame, 0, first, 0, frame.length);
+		System.arraycopy(INVALID, 0, first, frame.length, INVALID.length);
+		System.arraycopy(frame, 0, first, frame.length + INVALID.length, split);
+		write(first, 0, first.length);
+		assertReport();
+		assertNotNull("invalid message not reported", errors.poll(5, TimeUnit.SECONDS));
+		write(frame, split, frame.length - split);
+		assertReport();
+		assertTrue(errors.isEmpty());
+	}
+
+	public void testInvalidLength() throws Exception {
+		byte[] header = { 0x04, 0x3d, 0, 0, 0, 0x02, 0, 0, 0, 0 };
+		write(header, 0, header.length);
+		assertNotNull("invalid length not reported", errors.poll(5, TimeUnit.SECONDS));
+		// the bytes of the broken frame are dropped, later frames are decoded
+		write(frame, 0, frame.length);
+		assertReport();
+	}
+
+	private void write(byte[] bytes, int offset, int length) throws Exception {
+		stream.write(bytes, offset, length);
+		stream.flush();
+		// make the acceptor read the parts separately
+		Thread.sleep(100);
+	}
+
+	private void assertReport() throws Exception {
+		LLRPMessage message = messages.poll(5, TimeUnit.SECONDS);
+		assertTrue("RO_ACCESS_REPORT not received", message instanceof RO_ACCESS_REPORT);
+	}
+
+	public void messageReceived(LLRPMessage message) {
+		messages.add(message);
+	}
+
+	public void errorOccured(String message) {
+		errors.add(message);
+	}
+}
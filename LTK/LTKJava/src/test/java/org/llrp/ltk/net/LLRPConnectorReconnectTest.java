@@ -0,0 +1,131 @@
+package org.llrp.ltk.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.log4j.BasicConfigurator;
+import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
+import org.llrp.ltk.generated.messages.KEEPALIVE_ACK;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UnsignedInteger;
+
+public class LLRPConnectorReconnectTest extends TestCase implements LLRPEndpoint {
+
+	private static final int PORT = 25086;
+
+	TestReader reader;
+	LLRPConnector connector;
+	BlockingQueue<String> errors = new LinkedBlockingQueue<String>();
+
+	protected void setUp() throws Exception {
+		BasicConfigurator.configure();
+		reader = new TestReader(PORT);
+		connector = new LLRPConnector(this, "localhost", PORT);
+		connector.setReconnectDelay(100, 400);
+		connector.connect();
+		assertNotNull(reader.opened.poll(5, TimeUnit.SECONDS));
+	}
+
+	protected void tearDown() throws Exception {
+		connector.disconnect();
+		reader.close();
+	}
+
+	public void testReconnect() throws Exception {
+		// reconnects at once, maybe before isReconnecting is checked
+		reader.session.close();
+		assertNotNull("no reconnect", reader.opened.poll(5, TimeUnit.SECONDS));
+		waitForReconnect();
+		connector.send(message(1));
+		assertNotNull("message not sent after reconnect", reader.received.poll(5, TimeUnit.SECONDS));
+	}
+
+	public void testSessionUsedAfterConnectionAttemptEvent() throws Exception {
+		reader.status = null;
+		loseSession();
+		assertNotNull("no reconnect", reader.opened.poll(5, TimeUnit.SECONDS));
+		connector.send(message(1));
+		assertNull("message sent before the ConnectionAttemptEvent", reader.received.poll(300, TimeUnit.MILLISECONDS));
+		reader.session.write(TestReader.connectionAttemptEvent(new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Success)));
+		assertNotNull("queued message not sent", reader.received.poll(5, TimeUnit.SECONDS));
+		assertTrue(errors.isEmpty());
+	}
+
+	public void testBackoff() throws Exception {
+		reader.status = new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Failed_A_Client_Initiated_Connection_Already_Exists);
+		loseSession();
+		Thread.sleep(2000);
+		List<Long> attempts = new ArrayList<Long>();
+		reader.opened.drainTo(attempts);
+		assertTrue("too few attempts: " + attempts.size(), attempts.size() >= 4);
+		assertTrue("too many attempts: " + attempts.size(), attempts.size() <= 10);
+		for (int i = 1; i < attempts.size(); i++) {
+			long gap = attempts.get(i).longValue() - attempts.get(i - 1).longValue();
+			long delay = Math.min(400, 100 << (i - 1));
+			// the delays are randomized by up to half
+			assertTrue("attempt " + i + " after " + gap + " ms", gap >= delay / 2);
+		}
+		assertTrue(connector.isReconnecting());
+	}
+
+	public void testPendingMessageCapacity() throws Exception {
+		connector.setPendingMessageCapacity(2);
+		reader.status = new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Failed_A_Client_Initiated_Connection_Already_Exists);
+		loseSession();
+		connector.send(message(1));
+		connector.send(message(2));
+		assertTrue(errors.isEmpty());
+		connector.send(message(3));
+		assertNotNull("full queue not reported", errors.poll(5, TimeUnit.SECONDS));
+
+		reader.status = new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Success);
+		waitForReconnect();
+		assertEquals(1, reader.received.poll(5, TimeUnit.SECONDS).getMessageID().intValue());
+		assertEquals(2, reader.received.poll(5, TimeUnit.SECONDS).getMessageID().intValue());
+		assertNull(reader.received.poll(300, TimeUnit.MILLISECONDS));
+	}
+
+	public void testDisconnectStopsReconnect() throws Exception {
+		reader.status = new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Failed_A_Client_Initiated_Connection_Already_Exists);
+		loseSession();
+		connector.send(message(1));
+		connector.disconnect();
+		assertNotNull("queued message not dropped", errors.poll(5, TimeUnit.SECONDS));
+		assertFalse(connector.isReconnecting());
+		reader.opened.clear();
+		assertNull("reconnected after disconnect", reader.opened.poll(1000, TimeUnit.MILLISECONDS));
+	}
+
+	private void loseSession() throws Exception {
+		reader.session.close();
+		for (int i = 0; i < 100 && !connector.isReconnecting(); i++) {
+			Thread.sleep(50);
+		}
+		assertTrue("lost session not detected", connector.isReconnecting());
+	}
+
+	private void waitForReconnect() throws Exception {
+		for (int i = 0; i < 100 && connector.isReconnecting(); i++) {
+			Thread.sleep(50);
+		}
+		assertFalse("not reconnected", connector.isReconnecting());
+	}
+
+	private static LLRPMessage message(int messageID) {
+		KEEPALIVE_ACK message = new KEEPALIVE_ACK();
+		message.setMessageID(new UnsignedInteger(messageID));
+		return message;
+	}
+
+	public void messageReceived(LLRPMessage message) {
+	}
+
+	public void errorOccured(String message) {
+		errors.add(message);
+	}
+}
@@ -0,0 +1,104 @@
+package org.llrp.ltk.net;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.mina.common.IoSession;
+import org.llrp.ltk.generated.messages.RO_ACCESS_REPORT;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UnsignedInteger;
+
+public class LLRPDecodeExecutorTest extends TestCase {
+
+	private static final int PORT = 25089;
+	private static final int MESSAGES = 500;
+
+	TestReader reader;
+	ExecutorService executor;
+	LLRPConnector first;
+	LLRPConnector second;
+	Recorder firstEndpoint = new Recorder();
+	Recorder secondEndpoint = new Recorder();
+
+	protected void setUp() throws Exception {
+		BasicConfigurator.configure();
+		// a message per line slows the test down
+		Logger.getLogger(LLRPIoHandlerAdapterImpl.class).setLevel(Level.WARN);
+		reader = new TestReader(PORT);
+		executor = Executors.newFixedThreadPool(4, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable, "decode");
+			}
+		});
+		first = new LLRPConnector(firstEndpoint, "localhost", PORT);
+		first.setDecodeExecutor(executor);
+		second = new LLRPConnector(secondEndpoint, "localhost", PORT);
+		second.setDecodeExecutor(executor);
+	}
+
+	protected void tearDown() throws Exception {
+		first.disconnect();
+		second.disconnect();
+		reader.close();
+		executor.shutdown();
+		Logger.getLogger(LLRPIoHandlerAdapterImpl.class).setLevel(null);
+	}
+
+	public void testOrder() throws Exception {
+		first.connect();
+		IoSession firstSession = reader.session;
+		second.connect();
+		IoSession secondSession = reader.session;
+		// the ConnectionAttemptEvents
+		firstEndpoint.take();
+		secondEndpoint.take();
+
+		for (int i = 1; i <= MESSAGES; i++) {
+			firstSession.write(report(i));
+			secondSession.write(report(i));
+		}
+		for (int i = 1; i <= MESSAGES; i++) {
+			assertEquals("message of first session out of order", i, firstEndpoint.take().getMessageID().intValue());
+			assertEquals("message of second session out of order", i, secondEndpoint.take().getMessageID().intValue());
+		}
+		assertEquals("decode", firstEndpoint.thread);
+		assertEquals("decode", secondEndpoint.thread);
+	}
+
+	private static LLRPMessage report(int messageID) {
+		RO_ACCESS_REPORT report = new RO_ACCESS_REPORT();
+		report.setMessageID(new UnsignedInteger(messageID));
+		return report;
+	}
+
+	/**
+	 * keeps the messages received and the thread they were received on.
+	 */
+	private static class Recorder implements LLRPEndpoint {
+		final BlockingQueue<LLRPMessage> messages = new LinkedBlockingQueue<LLRPMessage>();
+		volatile String thread;
+
+		LLRPMessage take() throws InterruptedException {
+			LLRPMessage message = messages.poll(5, TimeUnit.SECONDS);
+			assertNotNull("message not received", message);
+			return message;
+		}
+
+		public void messageReceived(LLRPMessage message) {
+			thread = Thread.currentThread().getName();
+			messages.add(message);
+		}
+
+		public void errorOccured(String message) {
+		}
+	}
+}
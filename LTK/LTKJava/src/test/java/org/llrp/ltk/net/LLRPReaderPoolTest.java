@@ -0,0 +1,116 @@
+package org.llrp.ltk.net;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.log4j.BasicConfigurator;
+import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
+import org.llrp.ltk.net.LLRPReaderPool.State;
+import org.llrp.ltk.types.LLRPMessage;
+
+public class LLRPReaderPoolTest extends TestCase implements LLRPReaderPool.Listener {
+
+	private static final int PORT = 25087;
+	/** no reader listens on this port */
+	private static final int CLOSED_PORT = 25088;
+
+	TestReader reader;
+	LLRPReaderPool pool;
+	BlockingQueue<State> states = new LinkedBlockingQueue<State>();
+
+	protected void setUp() throws Exception {
+		BasicConfigurator.configure();
+		reader = new TestReader(PORT);
+		pool = new LLRPReaderPool(1, null);
+		pool.addListener(this);
+	}
+
+	protected void tearDown() throws Exception {
+		pool.close();
+		reader.close();
+	}
+
+	public void testConnect() throws Exception {
+		LLRPConnector connector = pool.connect("localhost", PORT, null, 5000).get(5, TimeUnit.SECONDS);
+		assertSame(connector, pool.getConnector("localhost", PORT));
+		assertEquals(State.CONNECTED, pool.getState("localhost", PORT));
+		assertStates(State.CONNECTING, State.CONNECTED);
+		// connecting again returns the connection
+		assertSame(connector, pool.connect("localhost", PORT, null, 5000).get(5, TimeUnit.SECONDS));
+		assertEquals(1, pool.size());
+		assertNull(states.poll(300, TimeUnit.MILLISECONDS));
+	}
+
+	public void testReconnect() throws Exception {
+		pool.connect("localhost", PORT, null, 5000).get(5, TimeUnit.SECONDS);
+		assertStates(State.CONNECTING, State.CONNECTED);
+		reader.session.close();
+		assertStates(State.DISCONNECTED, State.CONNECTED);
+		assertEquals(State.CONNECTED, pool.getState("localhost", PORT));
+	}
+
+	public void testRefused() throws Exception {
+		reader.status = new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Failed_A_Client_Initiated_Connection_Already_Exists);
+		assertFailed(PORT, 5000);
+	}
+
+	public void testTimeout() throws Exception {
+		reader.status = null;
+		assertFailed(PORT, 300);
+	}
+
+	public void testNoReader() throws Exception {
+		assertFailed(CLOSED_PORT, 5000);
+	}
+
+	public void testConnectAfterFailure() throws Exception {
+		reader.status = null;
+		assertFailed(PORT, 300);
+		reader.status = new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Success);
+		pool.connect("localhost", PORT, null, 5000).get(5, TimeUnit.SECONDS);
+		assertStates(State.CONNECTING, State.CONNECTED);
+	}
+
+	public void testDisconnect() throws Exception {
+		pool.connect("localhost", PORT, null, 5000).get(5, TimeUnit.SECONDS);
+		assertStates(State.CONNECTING, State.CONNECTED);
+		pool.disconnect("localhost", PORT);
+		assertEquals(0, pool.size());
+		assertNull(pool.getState("localhost", PORT));
+		assertStates(State.DISCONNECTED);
+		// the connector does not reconnect
+		reader.opened.clear();
+		assertNull(reader.opened.poll(1000, TimeUnit.MILLISECONDS));
+	}
+
+	private void assertFailed(int port, long timeout) throws Exception {
+		try {
+			pool.connect("localhost", port, null, timeout).get(5, TimeUnit.SECONDS);
+			fail("connection attempt must fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof LLRPConnectionAttemptFailedException);
+		}
+		assertEquals(State.FAILED, pool.getState("localhost", port));
+		assertStates(State.CONNECTING, State.FAILED);
+	}
+
+	private void assertStates(State... expected) throws Exception {
+		for (State state : expected) {
+			assertEquals(state, states.poll(5, TimeUnit.SECONDS));
+		}
+	}
+
+	public void messageReceived(LLRPConnector reader, LLRPMessage message) {
+	}
+
+	public void errorOccured(LLRPConnector reader, String message) {
+	}
+
+	public void stateChanged(LLRPConnector reader, State state) {
+		states.add(state);
+	}
+}
@@ -0,0 +1,158 @@
+package org.llrp.ltk.net;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+
+import org.apache.log4j.BasicConfigurator;
+import org.llrp.ltk.generated.enumerations.StatusCode;
+import org.llrp.ltk.generated.messages.DELETE_ROSPEC;
+import org.llrp.ltk.generated.messages.DELETE_ROSPEC_RESPONSE;
+import org.llrp.ltk.generated.messages.ERROR_MESSAGE;
+import org.llrp.ltk.generated.parameters.LLRPStatus;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UTF8String_UTF_8;
+import org.llrp.ltk.types.UnsignedInteger;
+
+public class LLRPTransactAsyncTest extends TestCase implements LLRPEndpoint {
+
+	private static final int PORT = 25090;
+
+	TestReader reader;
+	LLRPConnector connector;
+	BlockingQueue<LLRPMessage> messages = new LinkedBlockingQueue<LLRPMessage>();
+
+	protected void setUp() throws Exception {
+		BasicConfigurator.configure();
+		reader = new TestReader(PORT);
+		connector = new LLRPConnector(this, "localhost", PORT);
+		connector.connect();
+		// the ConnectionAttemptEvent
+		assertNotNull(messages.poll(5, TimeUnit.SECONDS));
+	}
+
+	protected void tearDown() throws Exception {
+		connector.disconnect();
+		reader.close();
+	}
+
+	public void testMatchByMessageID() throws Exception {
+		CompletableFuture<LLRPMessage> first = connector.transactAsync(request(1));
+		CompletableFuture<LLRPMessage> second = connector.transactAsync(request(2));
+		assertEquals(1, received().getMessageID().intValue());
+		assertEquals(2, received().getMessageID().intValue());
+
+		// answered in reverse order
+		reader.session.write(response(2));
+		assertEquals(2, second.get(5, TimeUnit.SECONDS).getMessageID().intValue());
+		assertFalse(first.isDone());
+		reader.session.write(response(1));
+		assertEquals(1, first.get(5, TimeUnit.SECONDS).getMessageID().intValue());
+		assertTrue("responses passed to the endpoint", messages.isEmpty());
+	}
+
+	public void testErrorMessage() throws Exception {
+		CompletableFuture<LLRPMessage> future = connector.transactAsync(request(1));
+		received();
+		ERROR_MESSAGE error = new ERROR_MESSAGE();
+		error.setMessageID(new UnsignedInteger(1));
+		error.setLLRPStatus(status());
+		reader.session.write(error);
+		assertTrue(future.get(5, TimeUnit.SECONDS) instanceof ERROR_MESSAGE);
+	}
+
+	public void testUnknownMessageID() throws Exception {
+		CompletableFuture<LLRPMessage> future = connector.transactAsync(request(1));
+		received();
+		reader.session.write(response(7));
+		assertNotNull("response without request not passed to the endpoint", messages.poll(5, TimeUnit.SECONDS));
+		assertFalse(future.isDone());
+	}
+
+	public void testMessageIDInUse() throws Exception {
+		CompletableFuture<LLRPMessage> first = connector.transactAsync(request(1));
+		DELETE_ROSPEC request = request(1);
+		CompletableFuture<LLRPMessage> second = connector.transactAsync(request);
+		int messageID = request.getMessageID().intValue();
+		assertTrue("message ID in use not replaced", messageID != 1);
+		received();
+		received();
+		reader.session.write(response(messageID));
+		reader.session.write(response(1));
+		assertEquals(1, first.get(5, TimeUnit.SECONDS).getMessageID().intValue());
+		assertEquals(messageID, second.get(5, TimeUnit.SECONDS).getMessageID().intValue());
+	}
+
+	public void testTimeout() throws Exception {
+		CompletableFuture<LLRPMessage> future = connector.transactAsync(request(1), 200);
+		received();
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("request must time out");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		// a late response is passed to the endpoint
+		reader.session.write(response(1));
+		assertNotNull(messages.poll(5, TimeUnit.SECONDS));
+	}
+
+	public void testSessionClosed() throws Exception {
+		CompletableFuture<LLRPMessage> first = connector.transactAsync(request(1));
+		CompletableFuture<LLRPMessage> second = connector.transactAsync(request(2));
+		received();
+		received();
+		reader.session.close();
+		assertFailed(first);
+		assertFailed(second);
+	}
+
+	private void assertFailed(CompletableFuture<LLRPMessage> future) throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("request must fail when the session is closed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	private LLRPMessage received() throws InterruptedException {
+		LLRPMessage message = reader.received.poll(5, TimeUnit.SECONDS);
+		assertNotNull("request not received", message);
+		return message;
+	}
+
+	private static DELETE_ROSPEC request(int messageID) {
+		DELETE_ROSPEC request = new DELETE_ROSPEC();
+		request.setMessageID(new UnsignedInteger(messageID));
+		request.setROSpecID(new UnsignedInteger(1));
+		return request;
+	}
+
+	private static DELETE_ROSPEC_RESPONSE response(int messageID) {
+		DELETE_ROSPEC_RESPONSE response = new DELETE_ROSPEC_RESPONSE();
+		response.setMessageID(new UnsignedInteger(messageID));
+		response.setLLRPStatus(status());
+		return response;
+	}
+
+	private static LLRPStatus status() {
+		LLRPStatus status = new LLRPStatus();
+		status.setStatusCode(new StatusCode(StatusCode.M_Success));
+		status.setErrorDescription(new UTF8String_UTF_8(""));
+		return status;
+	}
+
+	public void messageReceived(LLRPMessage message) {
+		messages.add(message);
+	}
+
+	public void errorOccured(String message) {
+	}
+}
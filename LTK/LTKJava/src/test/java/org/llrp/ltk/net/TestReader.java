@@ -0,0 +1,74 @@
+package org.llrp.ltk.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.mina.common.IoHandlerAdapter;
+import org.apache.mina.common.IoSession;
+import org.apache.mina.transport.socket.nio.SocketAcceptor;
+import org.llrp.ltk.generated.enumerations.ConnectionAttemptStatusType;
+import org.llrp.ltk.generated.messages.READER_EVENT_NOTIFICATION;
+import org.llrp.ltk.generated.parameters.ConnectionAttemptEvent;
+import org.llrp.ltk.generated.parameters.ReaderEventNotificationData;
+import org.llrp.ltk.generated.parameters.UTCTimestamp;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UnsignedLong_DATETIME;
+
+/**
+ * LLRP reader on localhost for the tests of the connections: it reports the
+ * ConnectionAttemptEvent status set to each session opened and keeps the
+ * messages it receives.
+ */
+class TestReader extends IoHandlerAdapter {
+
+	private final SocketAcceptor acceptor = new SocketAcceptor();
+	private final InetSocketAddress address;
+	/** status reported to new sessions, none is reported if null */
+	volatile ConnectionAttemptStatusType status = new ConnectionAttemptStatusType(ConnectionAttemptStatusType.Success);
+	/** time in ms each session was opened at */
+	final BlockingQueue<Long> opened = new LinkedBlockingQueue<Long>();
+	final BlockingQueue<LLRPMessage> received = new LinkedBlockingQueue<LLRPMessage>();
+	volatile IoSession session;
+
+	TestReader(int port) throws IOException {
+		address = new InetSocketAddress("localhost", port);
+		acceptor.getDefaultConfig().setReuseAddress(true);
+		LLRPConnection.addCodecFilter(acceptor, null);
+		acceptor.bind(address, this);
+	}
+
+	/**
+	 * closes all sessions and stops accepting connections.
+	 */
+	void close() {
+		acceptor.unbind(address);
+	}
+
+	public void sessionOpened(IoSession session) {
+		this.session = session;
+		opened.add(Long.valueOf(System.currentTimeMillis()));
+		ConnectionAttemptStatusType s = status;
+		if (s != null) {
+			session.write(connectionAttemptEvent(s));
+		}
+	}
+
+	public void messageReceived(IoSession session, Object message) {
+		received.add((LLRPMessage) message);
+	}
+
+	static READER_EVENT_NOTIFICATION connectionAttemptEvent(ConnectionAttemptStatusType status) {
+		ConnectionAttemptEvent event = new ConnectionAttemptEvent();
+		event.setStatus(status);
+		UTCTimestamp timestamp = new UTCTimestamp();
+		timestamp.setMicroseconds(new UnsignedLong_DATETIME(System.currentTimeMillis() * 1000));
+		ReaderEventNotificationData data = new ReaderEventNotificationData();
+		data.setTimestamp(timestamp);
+		data.setConnectionAttemptEvent(event);
+		READER_EVENT_NOTIFICATION notification = new READER_EVENT_NOTIFICATION();
+		notification.setReaderEventNotificationData(data);
+		return notification;
+	}
+}
@@ -0,0 +1,45 @@
+package org.llrp.ltk.types;
+
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.junit.Test;
+
+public class Integer96_HEXTest extends TestCase {
+
+	final String EPC = "e2003411b802011526370b2e";
+	final String EPC_SHORT = "0300000000000000000001";
+
+	@Test
+	public final void testEncodeXML() {
+		Integer96_HEX epc = new Integer96_HEX(EPC);
+		assertEquals("Integer96_HEX is not encoded correctly as hex", EPC, epc.encodeXML("foo", Namespace.getNamespace("foo")).getValue());
+		// leading zeros are dropped, but the number of digits stays even
+		epc = new Integer96_HEX(EPC_SHORT);
+		assertEquals("Integer96_HEX is not encoded correctly as hex", "0300000000000000000001", epc.toString());
+		assertEquals("Integer96_HEX decimal representation not correct", new BigInteger(EPC_SHORT, 16).toString(), epc.toString(10));
+	}
+
+	@Test
+	public final void testDecodeXML() {
+		Element element = new Element("foo", "ns");
+		element.setText(EPC.toUpperCase());
+		Integer96_HEX epc = new Integer96_HEX(element);
+		assertEquals("Integer96_HEX is not decoded correctly from hex", new BigInteger(EPC, 16), epc.toBigInteger());
+	}
+
+	@Test
+	public final void testBinaryRoundTrip() {
+		Integer96_HEX epc = new Integer96_HEX(EPC);
+		LLRPBitList bits = epc.encodeBinary();
+		assertEquals("Integer96_HEX binary length not correct", 96, bits.length());
+		assertEquals("Integer96_HEX not encoded correctly", new BigInteger(EPC, 16).toString(2), bits.toString());
+		Integer96_HEX decoded = new Integer96_HEX(bits);
+		assertEquals("Integer96_HEX not decoded correctly", EPC, decoded.toString());
+		assertEquals("Integer96_HEX lower 64 bits not correct", 0xb802011526370b2eL, decoded.longValue());
+		assertEquals("Integer96_HEX upper 32 bits not correct", 0xe2003411, decoded.highValue());
+	}
+}
@@ -0,0 +1,99 @@
+package org.llrp.ltk.types;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class LLRPBitListTest extends TestCase {
+
+	// 70 bits, crosses a word boundary
+	final String BITS = "1011001110001111000011111000001111110000001111111000000011111111000000";
+
+	public void testByteArrayRoundTrip() {
+		byte[] bytes = new byte[] {(byte) 0x04, (byte) 0x3d, (byte) 0x00, (byte) 0x00,
+				(byte) 0x00, (byte) 0x0e, (byte) 0x00, (byte) 0x00, (byte) 0xff, (byte) 0x80};
+		LLRPBitList list = new LLRPBitList(bytes);
+		assertEquals("LLRPBitList length not correct", 80, list.length());
+		assertEquals("LLRPBitList not decoded from bytes correctly", "00000100", list.subList(0, 8).toString());
+		assertEquals("LLRPBitList not decoded from bytes correctly", "1111111110000000", list.subList(64, 16).toString());
+		assertTrue("LLRPBitList not encoded to bytes correctly", Arrays.equals(bytes, list.toByteArray()));
+	}
+
+	public void testAppend() {
+		LLRPBitList list = new LLRPBitList("101");
+		list.append(new LLRPBitList(BITS));
+		list.add(true);
+		assertEquals("LLRPBitList not appended correctly", "101" + BITS + "1", list.toString());
+		list.append(list);
+		assertEquals("LLRPBitList not appended to itself correctly", "101" + BITS + "1" + "101" + BITS + "1", list.toString());
+	}
+
+	public void testSubList() {
+		LLRPBitList list = new LLRPBitList(BITS);
+		for (int from = 0; from < BITS.length(); from++) {
+			assertEquals("LLRPBitList sublist not correct", BITS.substring(from), list.subList(from, BITS.length() - from).toString());
+		}
+		try {
+			list.subList(1, BITS.length());
+			fail("sublist past end of list must not be allowed");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testSubListIsolation() {
+		LLRPBitList list = new LLRPBitList(BITS);
+		LLRPBitList sub = list.subList(5, 60);
+		LLRPBitList subsub = sub.subList(3, 50);
+		for (int i = 0; i < BITS.length(); i++) {
+			list.clear(i);
+		}
+		assertEquals("sublist changed by modification of list", BITS.substring(5, 65), sub.toString());
+		sub.set(3);
+		sub.append(new LLRPBitList("11"));
+		assertEquals("sublist not modified correctly", 62, sub.length());
+		assertEquals("sublist of sublist changed by modification of sublist", BITS.substring(8, 58), subsub.toString());
+		assertTrue("sublist not equal to copy", subsub.equals(new LLRPBitList(BITS.substring(8, 58))));
+	}
+
+	public void testIntValue() {
+		LLRPBitList list = new LLRPBitList(BITS);
+		LLRPBitList view = list.subList(3, 66);
+		for (int n = 0; n <= 32; n++) {
+			for (int from = 0; from + n <= view.length(); from++) {
+				long expected = n == 0 ? 0 : Long.parseLong(BITS.substring(3 + from, 3 + from + n), 2);
+				assertEquals("intValue not correct", (int) expected, view.intValue(from, n));
+			}
+		}
+		try {
+			view.intValue(60, 7);
+			fail("intValue past end of list must not be allowed");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testPad() {
+		LLRPBitList list = new LLRPBitList(BITS);
+		list.pad(61);
+		assertEquals("LLRPBitList not padded correctly", 61 + BITS.length(), list.length());
+		assertEquals("LLRPBitList not padded correctly", BITS, list.subList(61, BITS.length()).toString());
+		assertEquals("LLRPBitList not padded correctly", new LLRPBitList(61).toString(), list.subList(0, 61).toString());
+	}
+
+	public void testSetClearEquals() {
+		LLRPBitList list = new LLRPBitList(BITS.length());
+		for (int i = 0; i < BITS.length(); i++) {
+			if (BITS.charAt(i) == '1') {
+				list.set(i);
+			} else {
+				list.clear(i);
+			}
+		}
+		assertTrue("LLRPBitList not equal", list.equals(new LLRPBitList(BITS)));
+		assertEquals("LLRPBitList hashCode not equal", new LLRPBitList(BITS).hashCode(), list.hashCode());
+		list.set(BITS.length() + 1);
+		assertEquals("LLRPBitList did not grow on set", BITS.length() + 2, list.length());
+		assertFalse("LLRPBitList equal after set", list.equals(new LLRPBitList(BITS)));
+	}
+}
@@ -0,0 +1,67 @@
+package org.llrp.ltk.types;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class LLRPBitWriterTest extends TestCase {
+
+	public void testWriteMatchesBitList() {
+		LLRPBitList expected = new LLRPBitList("101");
+		expected.append(new UnsignedShort(0xBEEF).encodeBinary());
+		expected.append(new LLRPBitList(5));
+		expected.append(new UnsignedInteger(0xCAFEBABEL).encodeBinary());
+		expected.append(new LLRPBitList("11111111"));
+
+		// start at an offset and fill with garbage, every bit must be written
+		ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+		for (int i = 0; i < buffer.capacity(); i++) {
+			buffer.put(i, (byte) 0xA5);
+		}
+		buffer.position(2);
+		LLRPBitWriter writer = new LLRPBitWriter(buffer);
+		writer.writeBits(5, 3);
+		writer.writeBits(0xBEEF, 16);
+		writer.writeZeros(5);
+		writer.writeBits(0xCAFEBABE, 32);
+		writer.write(new LLRPBitList("11111111"));
+
+		assertEquals("LLRPBitWriter position not correct", expected.length(), writer.position());
+		byte[] written = new byte[writer.byteLength()];
+		for (int i = 0; i < written.length; i++) {
+			written[i] = buffer.get(2 + i);
+		}
+		assertTrue("LLRPBitWriter did not write the same bits as LLRPBitList", Arrays.equals(expected.toByteArray(), written));
+		assertEquals("LLRPBitWriter moved buffer position", 2, buffer.position());
+	}
+
+	public void testPatchBits() {
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		LLRPBitWriter writer = new LLRPBitWriter(buffer);
+		writer.writeBits(0, 4);
+		writer.writeBits(0, 16);
+		writer.writeBits(0xF, 4);
+		writer.patchBits(4, 0x1234, 16);
+		assertEquals("LLRPBitWriter did not patch correctly", 0x0123, buffer.getShort(0));
+		assertEquals("LLRPBitWriter did not patch correctly", 0x4F, buffer.get(2));
+		try {
+			writer.patchBits(20, 0, 8);
+			fail("patch beyond current position must not be allowed");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testOverflow() {
+		LLRPBitWriter writer = new LLRPBitWriter(ByteBuffer.allocate(3));
+		writer.writeBits(1, 16);
+		try {
+			writer.writeBits(1, 16);
+			fail("writing past the limit must throw BufferOverflowException");
+		} catch (BufferOverflowException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package org.llrp.ltk.types;
+
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+
+public class LLRPMessageTest extends TestCase {
+
+	/* counts validations instead of loading a schema */
+	private static class CountingMessage extends LLRPMessage {
+		int validations;
+		boolean policyChanged;
+
+		public boolean isValidXMLMessage(Document jdomDoc, String schemaPath) {
+			validations++;
+			return true;
+		}
+
+		protected LLRPBitList encodeBinarySpecific() {
+			return new LLRPBitList();
+		}
+
+		protected void decodeBinarySpecific(LLRPBitList bits) {
+		}
+
+		public Document encodeXML() throws InvalidLLRPMessageException {
+			policyChanged |= getValidationPolicy() != LLRPValidationPolicy.SAMPLED;
+			Document document = new Document(new Element(getName()));
+			validateXMLMessage(document, "");
+			return document;
+		}
+
+		public void decodeXML(Document xml) {
+		}
+
+		public SignedShort getTypeNum() {
+			return new SignedShort(1023);
+		}
+
+		public String getResponseType() {
+			return "";
+		}
+
+		public String getName() {
+			return "COUNTING_MESSAGE";
+		}
+	}
+
+	protected void tearDown() {
+		LLRPMessage.setDefaultValidationPolicy(LLRPValidationPolicy.ALWAYS);
+		LLRPMessage.setValidationSampleInterval(100);
+	}
+
+	public void testValidationPolicy() throws InvalidLLRPMessageException {
+		CountingMessage message = new CountingMessage();
+		for (int i = 0; i < 10; i++) {
+			message.validateXMLMessage(null, "");
+		}
+		assertEquals("ALWAYS must validate every message", 10, message.validations);
+
+		LLRPMessage.setDefaultValidationPolicy(LLRPValidationPolicy.NONE);
+		message.validations = 0;
+		for (int i = 0; i < 10; i++) {
+			message.validateXMLMessage(null, "");
+		}
+		assertEquals("NONE must not validate", 0, message.validations);
+
+		message.setValidationPolicy(LLRPValidationPolicy.SAMPLED);
+		LLRPMessage.setValidationSampleInterval(5);
+		for (int i = 0; i < 100; i++) {
+			message.validateXMLMessage(null, "");
+		}
+		assertEquals("SAMPLED must validate every 5th message", 20, message.validations);
+
+		try {
+			LLRPMessage.setValidationSampleInterval(0);
+			fail("sample interval 0 must not be allowed");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testStreamedEncodeKeepsPolicy() throws InvalidLLRPMessageException {
+		CountingMessage message = new CountingMessage();
+		message.setValidationPolicy(LLRPValidationPolicy.SAMPLED);
+		LLRPMessage.setValidationSampleInterval(3);
+		for (int i = 0; i < 30; i++) {
+			message.encodeXML(new ByteArrayOutputStream());
+		}
+		assertEquals("SAMPLED must validate every 3rd message", 10, message.validations);
+		assertFalse("policy of the message changed while encoding", message.policyChanged);
+		assertEquals("policy not restored", LLRPValidationPolicy.SAMPLED, message.getValidationPolicy());
+	}
+}
@@ -0,0 +1,55 @@
+package org.llrp.ltk.types;
+
+import junit.framework.TestCase;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+public class LLRPNumberFormatTest extends TestCase {
+
+	private static Element element(String text) {
+		Element element = new Element("test", Namespace.getNamespace("foo"));
+		element.setText(text);
+		return element;
+	}
+
+	public void testUserMemoryRoundTrip() {
+		short[] words = new short[512];
+		StringBuffer expected = new StringBuffer();
+		for (int i = 0; i < words.length; i++) {
+			words[i] = (short) (i * 257);
+			String hex = Integer.toHexString(words[i] & 0xFFFF);
+			expected.append(i == 0 ? "" : " ").append("0000".substring(hex.length())).append(hex);
+		}
+		UnsignedShortArray_HEX array = new UnsignedShortArray_HEX(words);
+		assertEquals("hex words not formatted correctly", expected.toString(), array.toString());
+
+		UnsignedShortArray_HEX decoded = new UnsignedShortArray_HEX(element(array.toString()));
+		assertTrue("hex words not decoded correctly", array.equals(decoded));
+	}
+
+	public void testParseArray() {
+		long[] values = LLRPNumberFormat.parseArray(" -32768  0 +7 32767", 10, Short.MIN_VALUE, Short.MAX_VALUE);
+		assertEquals("wrong number of values", 4, values.length);
+		assertEquals(-32768, values[0]);
+		assertEquals(7, values[2]);
+		assertEquals(32767, values[3]);
+		assertEquals("empty text has values", 0, LLRPNumberFormat.parseArray("", 16, 0, 0xFFFF).length);
+		try {
+			LLRPNumberFormat.parseArray("1 65536", 10, 0, 0xFFFF);
+			fail("value out of range accepted");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			LLRPNumberFormat.parseArray("1 x2", 16, 0, 0xFFFF);
+			fail("invalid digit accepted");
+		} catch (NumberFormatException e) {
+		}
+	}
+
+	public void testHexBytes() {
+		UnsignedByteArray_HEX bytes = new UnsignedByteArray_HEX(element("00ff10A0"));
+		assertEquals("hex bytes not decoded correctly", 4, bytes.size());
+		assertEquals("hex bytes not formatted correctly", "00ff10a0", bytes.toString());
+	}
+}
@@ -0,0 +1,56 @@
+package org.llrp.ltk.types;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jdom.Element;
+
+public class LLRPNumberTypeTest extends TestCase {
+
+	public void testEqualsByValue() {
+		assertTrue("same value not equal", new UnsignedShort(5).equals(new UnsignedShort(5)));
+		assertFalse("different values equal", new UnsignedShort(5).equals(new UnsignedShort(6)));
+		assertTrue("same value of different types not equal", new UnsignedShort(5).equals(new SignedShort(5)));
+		assertTrue("same value of different types not equal", new UnsignedInteger(300).equals(new UnsignedLong(300L)));
+		assertTrue("same value of different types not equal", new UnsignedInteger96(7L).equals(new UnsignedByte(7)));
+		assertTrue("number not equal to its string", new UnsignedShort(5).equals("5"));
+		assertFalse("number equal to null", new UnsignedShort(5).equals(null));
+	}
+
+	public void testEqualsSignedUnsigned() {
+		// all bits set is -1 for signed types but not for unsigned ones
+		UnsignedLong max = new UnsignedLong(-1L);
+		assertEquals("UnsignedLong not unsigned", "18446744073709551615", max.toString(10));
+		assertFalse("unsigned maximum equal to -1", max.equals(new SignedInteger(-1)));
+		assertFalse("unsigned maximum equal to -1", new SignedInteger(-1).equals(max));
+		UnsignedInteger96 big = new UnsignedInteger96(BigInteger.ONE.shiftLeft(64).add(BigInteger.ONE));
+		assertFalse("96 bit value equal to its lower 64 bits", big.equals(new UnsignedLong(1L)));
+		assertTrue("96 bit value not equal to itself", big.equals(new UnsignedInteger96(big.toBigInteger())));
+	}
+
+	public void testHashCode() {
+		Map<LLRPNumberType, String> map = new HashMap<LLRPNumberType, String>();
+		map.put(new UnsignedShort(1), "antenna 1");
+		map.put(new UnsignedShort(2), "antenna 2");
+		assertEquals("lookup by equal key failed", "antenna 2", map.get(new UnsignedShort(2)));
+		assertEquals("lookup by equal key of other type failed", "antenna 1", map.get(new UnsignedInteger(1)));
+		assertEquals("hashCode of equal values differs", new UnsignedInteger96(42L).hashCode(), new SignedByte((byte) 42).hashCode());
+	}
+
+	public void testUnsignedLongRange() {
+		assertEquals("maximum not parsed", "18446744073709551615", new UnsignedLong("18446744073709551615", 10).toString(10));
+		assertEquals("maximum not parsed", -1L, new UnsignedLong("ffffffffffffffff", 16).toLong());
+		String[] outOfRange = new String[] {"-5", "18446744073709551616", "-18446744073709551611"};
+		for (int i = 0; i < outOfRange.length; i++) {
+			try {
+				new UnsignedLong(new Element("Value").setText(outOfRange[i]));
+				fail(outOfRange[i] + " must not be accepted");
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.llrp.ltk.types;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class LLRPParameterFactoryTest extends TestCase {
+
+	private static LLRPParameterFactory factory(int typeNum) {
+		return new LLRPParameterFactory(new SignedShort(typeNum), 0) {
+			public LLRPParameter create(LLRPBitList bits) {
+				return null;
+			}
+
+			public LLRPParameter create(LLRPBitReader reader, int length, int end) {
+				return null;
+			}
+		};
+	}
+
+	private static LLRPCustomParameterFactory custom(long vendor, long subtype) {
+		return new LLRPCustomParameterFactory(new SignedShort(1023), vendor, subtype) {
+			public LLRPParameter create(LLRPBitList bits) {
+				return null;
+			}
+
+			public LLRPParameter create(LLRPBitReader reader, int length, int end) {
+				return null;
+			}
+		};
+	}
+
+	public void testLookup() {
+		LLRPParameterFactory read = factory(341);
+		LLRPParameterFactory request = factory(210);
+		LLRPParameterFactory[] table = LLRPParameterFactory.table(new LLRPParameterFactory[] {read, request});
+		assertSame("factory not found", read, LLRPParameterFactory.lookup(table, 341));
+		assertSame("factory not found", request, LLRPParameterFactory.lookup(table, 210));
+		assertNull("unknown type found", LLRPParameterFactory.lookup(table, 342));
+		assertNull("missing type found", LLRPParameterFactory.lookup(table, -1));
+		try {
+			LLRPParameterFactory.table(new LLRPParameterFactory[] {read, factory(341)});
+			fail("two factories for one type must not be allowed");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testCustomLookup() {
+		LLRPCustomParameterFactory impinj = custom(25882, 21);
+		LLRPCustomParameterFactory high = custom(0xFFFFFFFEL, 0xFFFFFFFFL);
+		Map<Long, LLRPCustomParameterFactory> table = LLRPCustomParameterFactory.table(
+				new LLRPCustomParameterFactory[] {impinj, high});
+
+		// type 1023, length 16 bytes, vendor, subtype, 4 bytes data
+		byte[] bytes = new byte[] {0x03, (byte) 0xff, 0x00, 0x10, 0x00, 0x00, 0x65, 0x1a,
+				0x00, 0x00, 0x00, 0x15, 0x01, 0x02, 0x03, 0x04};
+		LLRPBitList bits = new LLRPBitList(bytes);
+		assertSame("custom factory not found", impinj, LLRPCustomParameterFactory.lookup(table, bits, 0, 128));
+		assertSame("custom factory not found", impinj,
+				LLRPCustomParameterFactory.lookup(table, new LLRPBitReader(bytes), 128));
+		assertNull("header too short", LLRPCustomParameterFactory.lookup(table, bits, 0, 64));
+
+		bytes[11] = 0x16;
+		assertNull("unknown subtype found", LLRPCustomParameterFactory.lookup(table, new LLRPBitList(bytes), 0, 128));
+
+		for (int i = 4; i < 12; i++) {
+			bytes[i] = (byte) 0xff;
+		}
+		bytes[7] = (byte) 0xfe;
+		assertSame("unsigned vendor and subtype not found", high,
+				LLRPCustomParameterFactory.lookup(table, new LLRPBitReader(bytes), 128));
+	}
+}
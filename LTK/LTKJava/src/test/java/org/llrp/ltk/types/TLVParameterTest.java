@@ -0,0 +1,41 @@
+package org.llrp.ltk.types;
+
+import junit.framework.TestCase;
+
+import org.llrp.ltk.generated.parameters.LLRPStatus;
+
+public class TLVParameterTest extends TestCase {
+
+	// LLRPStatus (16 bytes) holding a FieldError (8 bytes), followed by a
+	// second FieldError that is not part of the LLRPStatus
+	private static byte[] status() {
+		return new byte[] {0x01, 0x1f, 0x00, 0x10, 0x00, 0x00, 0x00, 0x00,
+				0x01, 0x20, 0x00, 0x08, 0x00, 0x01, 0x00, 0x00,
+				0x01, 0x20, 0x00, 0x08, 0x00, 0x02, 0x00, 0x00};
+	}
+
+	public void testNestedParameter() {
+		LLRPBitReader reader = new LLRPBitReader(status());
+		LLRPStatus status = new LLRPStatus(reader, 128, 192);
+		assertEquals("wrong field decoded", 1, status.getFieldError().getFieldNum().intValue());
+		assertEquals("reader not at end of parameter", 128, reader.position());
+	}
+
+	public void testNestedLengthBeyondParent() {
+		byte[] bytes = status();
+		// FieldError claims 12 bytes, 4 more than left in the LLRPStatus
+		bytes[11] = 0x0c;
+		try {
+			new LLRPStatus(new LLRPBitReader(bytes), 128, 192);
+			fail("nested parameter must not extend beyond its parent");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			new LLRPStatus(new LLRPBitList(bytes).subList(0, 128));
+			fail("nested parameter must not extend beyond its parent");
+		} catch (IllegalArgumentException e) {
+			// expected, same as the reader
+		}
+	}
+}
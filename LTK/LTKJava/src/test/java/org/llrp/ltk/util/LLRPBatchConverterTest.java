@@ -0,0 +1,76 @@
+package org.llrp.ltk.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.jdom.input.SAXBuilder;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.generated.enumerations.GetReaderConfigRequestedData;
+import org.llrp.ltk.generated.messages.GET_READER_CONFIG;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UnsignedInteger;
+import org.llrp.ltk.types.UnsignedShort;
+
+public class LLRPBatchConverterTest extends TestCase {
+
+	private static final int COUNT = 10;
+
+	private File dir;
+
+	protected void setUp() throws Exception {
+		dir = File.createTempFile("batch", "");
+		dir.delete();
+		dir.mkdir();
+		for (int i = 0; i < COUNT; i++) {
+			FileOutputStream out = new FileOutputStream(new File(dir, "message" + i + ".bin"));
+			out.write(message(i).encodeBinary());
+			out.close();
+		}
+	}
+
+	protected void tearDown() {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	private static GET_READER_CONFIG message(int id) {
+		GET_READER_CONFIG message = new GET_READER_CONFIG();
+		message.setMessageID(new UnsignedInteger(id));
+		message.setAntennaID(new UnsignedShort(id));
+		message.setRequestedData(new GetReaderConfigRequestedData(GetReaderConfigRequestedData.All));
+		message.setGPIPortNum(new UnsignedShort(0));
+		message.setGPOPortNum(new UnsignedShort(0));
+		return message;
+	}
+
+	public void testConvertAndParseBack() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			LLRPBatchConverter converter = new LLRPBatchConverter(executor);
+			assertEquals("not all files converted to XML", COUNT, converter.convertDirectory(dir, null, false));
+			for (int i = 0; i < COUNT; i++) {
+				File xml = new File(dir, "message" + i + ".xml");
+				LLRPMessage parsed = LLRPMessageFactory.createLLRPMessage(new SAXBuilder().build(xml));
+				assertTrue("XML does not decode to the message",
+						Arrays.equals(message(i).encodeBinary(), parsed.encodeBinary()));
+				new File(dir, "message" + i + ".bin").delete();
+			}
+
+			assertEquals("not all files converted to binary", COUNT, converter.convertDirectory(dir, null, true));
+			for (int i = 0; i < COUNT; i++) {
+				byte[] binary = Util.loadBinaryFile(new File(dir, "message" + i + ".bin"));
+				assertTrue("binary differs after converting back",
+						Arrays.equals(message(i).encodeBinary(), binary));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.llrp.ltk.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.messages.KEEPALIVE;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UnsignedInteger;
+
+public class LLRPCaptureFileTest extends TestCase {
+
+	private static final int COUNT = 100;
+
+	private File capture;
+
+	protected void setUp() throws Exception {
+		capture = File.createTempFile("capture", ".bin");
+		FileOutputStream out = new FileOutputStream(capture);
+		for (int i = 0; i < COUNT; i++) {
+			KEEPALIVE message = new KEEPALIVE();
+			message.setMessageID(new UnsignedInteger(i));
+			out.write(message.encodeBinary());
+		}
+		// header of a frame cut off by the end of the capture
+		out.write(new byte[] { 0x04, 0x3E, 0, 0, 0, 20 });
+		out.close();
+	}
+
+	protected void tearDown() {
+		capture.delete();
+	}
+
+	public void testRandomAccess() throws IOException, InvalidLLRPMessageException {
+		LLRPCaptureFile file = new LLRPCaptureFile(capture);
+		assertEquals("frames not indexed", COUNT, file.size());
+		assertEquals("wrong offset", 42 * LLRPCaptureFile.HEADER_LENGTH, file.getOffset(42));
+		assertEquals("wrong message", 73, file.getMessage(73).getMessageID().intValue());
+	}
+
+	public void testSmallSegments() throws IOException, InvalidLLRPMessageException {
+		LLRPCaptureFile file = new LLRPCaptureFile(capture, 25);
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals("wrong message in segment", i, file.getMessage(i).getMessageID().intValue());
+		}
+	}
+
+	public void testParallelDecode() throws IOException, InterruptedException {
+		LLRPCaptureFile file = new LLRPCaptureFile(capture);
+		final AtomicInteger decoded = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			file.decode(executor, new LLRPCaptureFile.Handler() {
+				public void message(int index, LLRPMessage message) {
+					if (message.getMessageID().intValue() == index) {
+						decoded.incrementAndGet();
+					}
+				}
+
+				public void error(int index, InvalidLLRPMessageException e) {
+				}
+			});
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals("not all messages decoded", COUNT, decoded.get());
+	}
+}
@@ -0,0 +1,55 @@
+package org.llrp.ltk.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.messages.KEEPALIVE;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.UnsignedInteger;
+
+public class LLRPMessageSequenceTest extends TestCase {
+
+	private static final int COUNT = 50;
+
+	private static byte[] sequence() throws InvalidLLRPMessageException, IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LLRPMessageSequenceWriter writer = new LLRPMessageSequenceWriter(out);
+		for (int i = 0; i < COUNT; i++) {
+			KEEPALIVE message = new KEEPALIVE();
+			message.setMessageID(new UnsignedInteger(i));
+			writer.write(message);
+		}
+		writer.close();
+		return out.toByteArray();
+	}
+
+	private static void assertSequence(LLRPMessageSequenceReader reader) throws InvalidLLRPMessageException, IOException {
+		for (int i = 0; i < COUNT; i++) {
+			LLRPMessage message = reader.read();
+			assertTrue("message " + i + " not read", message instanceof KEEPALIVE);
+			assertEquals("messages out of order", i, message.getMessageID().intValue());
+		}
+		assertNull("end of sequence not detected", reader.read());
+		assertTrue("packetSequence not detected", reader.isSequence());
+		reader.close();
+	}
+
+	public void testReadWrittenSequence() throws InvalidLLRPMessageException, IOException {
+		assertSequence(new LLRPMessageSequenceReader(new ByteArrayInputStream(sequence())));
+	}
+
+	public void testParallelDecodeKeepsOrder() throws InvalidLLRPMessageException, IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			assertSequence(new LLRPMessageSequenceReader(new ByteArrayInputStream(sequence()), executor, 8));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.llrp.ltk.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.jdom.Document;
+import org.jdom.input.SAXBuilder;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.LLRPMessageFactory;
+import org.llrp.ltk.types.LLRPMessage;
+
+public class LLRPTranscoderTest extends TestCase {
+
+	private static final File TEST_DIRECTORY = new File("src/test/resources");
+
+	private static File[] files(final String extension) {
+		return TEST_DIRECTORY.listFiles(new FilenameFilter() {
+			public boolean accept(File dir, String name) {
+				return name.endsWith(extension);
+			}
+		});
+	}
+
+	public void testBinaryToXML() throws Exception {
+		for (File file : files(".bin")) {
+			byte[] frame = Util.loadBinaryFile(file);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			LLRPTranscoder.toXML(ByteBuffer.wrap(frame), out);
+			Document document = new SAXBuilder().build(new ByteArrayInputStream(out.toByteArray()));
+			assertEquals("XML differs from the message object for " + file.getName(),
+					LLRPMessageFactory.createLLRPMessage(frame).toXMLString(),
+					LLRPXMLOutputOptions.PRETTY.outputString(document));
+		}
+	}
+
+	public void testXMLToBinary() throws Exception {
+		for (File file : files(".xml")) {
+			byte[] xml = Util.loadBinaryFile(file);
+			LLRPMessage message = LLRPMessageFactory.createLLRPMessage(new SAXBuilder().build(file));
+			assertTrue("binary differs from the message object for " + file.getName(),
+					Arrays.equals(message.encodeBinary(), LLRPTranscoder.toBinary(xml)));
+		}
+	}
+
+	public void testBitCount() throws Exception {
+		// EPC of a single bit, the bit count is the Count attribute in XML
+		byte[] frame = Util.loadBinaryFile(new File(TEST_DIRECTORY, "RO_ACCESS_REPORT_EPC_BITS.bin"));
+		byte[] xml = Util.loadBinaryFile(new File(TEST_DIRECTORY, "RO_ACCESS_REPORT_EPC_BITS.xml"));
+		assertTrue("bit count of EPC not encoded", Arrays.equals(frame, LLRPTranscoder.toBinary(xml)));
+	}
+
+	public void testTruncatedFrame() throws Exception {
+		byte[] frame = Util.loadBinaryFile(new File(TEST_DIRECTORY, "RO_ACCESS_REPORT.bin"));
+		// message length still claims the whole frame
+		ByteBuffer truncated = ByteBuffer.wrap(frame, 0, frame.length - 1);
+		try {
+			LLRPTranscoder.toXML(truncated, new ByteArrayOutputStream());
+			fail("truncated frame must not be transcoded");
+		} catch (InvalidLLRPMessageException e) {
+			// expected
+		}
+	}
+
+	public void testFieldsOutOfOrder() throws Exception {
+		String xml = "<llrp:GET_READER_CONFIG xmlns:llrp=\"http://www.llrp.org/ltk/schema/core/encoding/xml/1.0\" Version=\"1\" MessageID=\"0\">"
+				+ "<llrp:RequestedData>All</llrp:RequestedData><llrp:AntennaID>0</llrp:AntennaID>"
+				+ "<llrp:GPIPortNum>0</llrp:GPIPortNum><llrp:GPOPortNum>0</llrp:GPOPortNum>"
+				+ "</llrp:GET_READER_CONFIG>";
+		try {
+			LLRPTranscoder.toBinary(xml.getBytes("UTF-8"));
+			fail("fields must be in the order of the definition");
+		} catch (InvalidLLRPMessageException e) {
+			// expected
+		}
+	}
+}
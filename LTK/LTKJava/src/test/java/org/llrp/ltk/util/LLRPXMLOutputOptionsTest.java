@@ -0,0 +1,33 @@
+package org.llrp.ltk.util;
+
+import junit.framework.TestCase;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+public class LLRPXMLOutputOptionsTest extends TestCase {
+
+	private static final Namespace LLRP = Namespace.getNamespace("llrp", "http://www.llrp.org/ltk/schema/core/encoding/xml/1.0");
+
+	private static Document document() {
+		Element root = new Element("KEEPALIVE", LLRP);
+		root.setAttribute("MessageID", "1");
+		Element child = new Element("AntennaID", LLRP);
+		child.setText("1");
+		root.addContent(child);
+		return new Document(root);
+	}
+
+	public void testCompactHasNoWhitespaceBetweenElements() {
+		String xml = LLRPXMLOutputOptions.COMPACT.outputString(document());
+		assertTrue("compact output not compact: " + xml, xml.indexOf("<llrp:KEEPALIVE xmlns:llrp=\"" + LLRP.getURI()
+				+ "\" MessageID=\"1\"><llrp:AntennaID>1</llrp:AntennaID></llrp:KEEPALIVE>") >= 0);
+		assertTrue("pretty output not larger", LLRPXMLOutputOptions.PRETTY.outputString(document()).length() > xml.length());
+	}
+
+	public void testNamespaceDeclarationsOmitted() {
+		String xml = new LLRPXMLOutputOptions(false, false).outputString(document());
+		assertTrue("namespaces not omitted: " + xml, xml.indexOf("<KEEPALIVE MessageID=\"1\"><AntennaID>1</AntennaID></KEEPALIVE>") >= 0);
+	}
+}
@@ -0,0 +1,108 @@
+package org.llrp.ltk.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import junit.framework.TestCase;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.Namespace;
+import org.jdom.input.SAXBuilder;
+import org.llrp.ltk.exceptions.InvalidLLRPMessageException;
+import org.llrp.ltk.generated.enumerations.GetReaderConfigRequestedData;
+import org.llrp.ltk.generated.messages.GET_READER_CONFIG;
+import org.llrp.ltk.types.LLRPMessage;
+import org.llrp.ltk.types.Integer96_HEX;
+import org.llrp.ltk.types.LLRPType;
+import org.llrp.ltk.types.LLRPValidationPolicy;
+import org.llrp.ltk.types.SignedByte;
+import org.llrp.ltk.types.UnsignedInteger;
+import org.llrp.ltk.types.UnsignedLong_DATETIME;
+import org.llrp.ltk.types.UnsignedShort;
+import org.llrp.ltk.types.UnsignedShortArray;
+
+public class XMLStreamUtilTest extends TestCase {
+
+	private static final Namespace LLRP = Namespace.getNamespace("llrp", "http://www.llrp.org/ltk/schema/core/encoding/xml/1.0");
+
+	private static String write(LLRPType type) throws XMLStreamException {
+		StringWriter out = new StringWriter();
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+		type.encodeXML("Value", LLRP, writer);
+		writer.close();
+		return out.toString();
+	}
+
+	private static String expected(LLRPType type) {
+		return "<llrp:Value xmlns:llrp=\"" + LLRP.getURI() + "\">"
+				+ ((Element) type.encodeXML("Value", LLRP)).getText() + "</llrp:Value>";
+	}
+
+	public void testTypesWriteSameTextAsElement() throws XMLStreamException {
+		LLRPType[] types = new LLRPType[] {new UnsignedShort(65535), new SignedByte(-40),
+				new UnsignedInteger(4294967295L), new Integer96_HEX("300833B2DDD9014000000000", 16),
+				new UnsignedLong_DATETIME(1190000000123456L), new UnsignedShortArray(new short[] {1, 2})};
+		for (int i = 0; i < types.length; i++) {
+			assertEquals("streamed " + types[i].getClass().getName() + " not correct", expected(types[i]), write(types[i]));
+		}
+	}
+
+	public void testNamespaceDeclaredOnce() throws XMLStreamException {
+		StringWriter out = new StringWriter();
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+		XMLStreamUtil.writeStartElement(writer, "RO_ACCESS_REPORT", LLRP);
+		XMLStreamUtil.writeElement(writer, "AntennaID", LLRP, "1");
+		XMLStreamUtil.writeElement(writer, "Custom", Namespace.getNamespace("impinj", "http://developer.impinj.com/ltk/schema/encoding/xml/1.2"), "");
+		writer.writeEndElement();
+		writer.close();
+		assertEquals("namespaces not declared correctly", "<llrp:RO_ACCESS_REPORT xmlns:llrp=\"" + LLRP.getURI() + "\">"
+				+ "<llrp:AntennaID>1</llrp:AntennaID>"
+				+ "<impinj:Custom xmlns:impinj=\"http://developer.impinj.com/ltk/schema/encoding/xml/1.2\"></impinj:Custom>"
+				+ "</llrp:RO_ACCESS_REPORT>", out.toString());
+	}
+
+	public void testReadElementWritesBack() throws XMLStreamException {
+		String xml = "<llrp:RO_ACCESS_REPORT xmlns:llrp=\"" + LLRP.getURI() + "\" Version=\"1\" MessageID=\"0\">"
+				+ "<llrp:TagReportData><llrp:AntennaID>1</llrp:AntennaID></llrp:TagReportData>"
+				+ "<impinj:Custom xmlns:impinj=\"http://developer.impinj.com/ltk/schema/encoding/xml/1.2\"></impinj:Custom>"
+				+ "</llrp:RO_ACCESS_REPORT>";
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml + "<next/>"));
+		reader.nextTag();
+		Element element = XMLStreamUtil.readElement(reader);
+		assertTrue("reader not left at end tag", reader.isEndElement());
+		assertEquals("wrong element read", "RO_ACCESS_REPORT", reader.getLocalName());
+		assertEquals("attribute not read", "1", element.getAttributeValue("Version"));
+
+		StringWriter out = new StringWriter();
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+		XMLStreamUtil.writeContent(writer, element);
+		writer.close();
+		assertEquals("element not read completely", xml, out.toString());
+	}
+
+	public void testMessageWithDefaultPolicyParses() throws InvalidLLRPMessageException, JDOMException, IOException {
+		GET_READER_CONFIG message = new GET_READER_CONFIG();
+		message.setAntennaID(new UnsignedShort(0));
+		message.setRequestedData(new GetReaderConfigRequestedData(GetReaderConfigRequestedData.All));
+		message.setGPIPortNum(new UnsignedShort(0));
+		message.setGPOPortNum(new UnsignedShort(0));
+		assertEquals("default policy changed", LLRPValidationPolicy.ALWAYS, LLRPMessage.getDefaultValidationPolicy());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		message.encodeXML(out);
+		Document document = new SAXBuilder().build(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals("streamed message not the same as document", message.toXMLString(),
+				LLRPXMLOutputOptions.PRETTY.outputString(document));
+	}
+}